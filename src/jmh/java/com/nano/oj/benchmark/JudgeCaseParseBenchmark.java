@@ -0,0 +1,60 @@
+package com.nano.oj.benchmark;
+
+import cn.hutool.json.JSONUtil;
+import com.nano.oj.model.dto.problem.JudgeCase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * judgeCase JSON 解析 (旧题目迁移到测试数据存储、管理员编辑题目时仍会走这条路径)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:+UseParallelGC"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class JudgeCaseParseBenchmark {
+
+    // 用例数
+    @Param({"10", "100"})
+    private int cases;
+
+    // 单个用例输入 / 输出的大小 (字符)
+    @Param({"1024", "65536"})
+    private int caseSize;
+
+    private String judgeCaseJson;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        List<JudgeCase> judgeCaseList = new ArrayList<>(cases);
+        for (int i = 0; i < cases; i++) {
+            JudgeCase judgeCase = new JudgeCase();
+            judgeCase.setInput(VoConvertBenchmark.randomText(random, caseSize));
+            judgeCase.setOutput(VoConvertBenchmark.randomText(random, caseSize));
+            judgeCaseList.add(judgeCase);
+        }
+        judgeCaseJson = JSONUtil.toJsonStr(judgeCaseList);
+    }
+
+    @Benchmark
+    public List<JudgeCase> parseJudgeCase() {
+        return JSONUtil.toList(judgeCaseJson, JudgeCase.class);
+    }
+}
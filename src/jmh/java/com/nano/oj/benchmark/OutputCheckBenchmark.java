@@ -0,0 +1,80 @@
+package com.nano.oj.benchmark;
+
+import com.nano.oj.judge.checker.OutputChecker;
+import com.nano.oj.judge.checker.StreamingOutputComparator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 输出比对基准：整体比对 (OutputChecker) 与流式比对 (StreamingOutputComparator)
+ * 实际输出与预期输出内容相同、空白不同 (CRLF、行尾空格)，即需要完整比对到最后的“通过”场景
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:+UseParallelGC"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class OutputCheckBenchmark {
+
+    // 输出的 token 数
+    @Param({"1000", "100000", "1000000"})
+    private int tokens;
+
+    private String expected;
+
+    private String actual;
+
+    private byte[] expectedBytes;
+
+    private byte[] actualBytes;
+
+    @Setup
+    public void setup() {
+        // 固定种子，保证每次运行的数据一致
+        Random random = new Random(42);
+        StringBuilder expectedBuilder = new StringBuilder();
+        StringBuilder actualBuilder = new StringBuilder();
+        for (int i = 0; i < tokens; i++) {
+            String token = String.valueOf(random.nextInt(1_000_000_000));
+            boolean lineEnd = i % 10 == 9;
+            expectedBuilder.append(token).append(lineEnd ? "\n" : " ");
+            actualBuilder.append(token).append(lineEnd ? " \r\n" : " ");
+        }
+        expected = expectedBuilder.toString();
+        actual = actualBuilder.toString();
+        expectedBytes = expected.getBytes(StandardCharsets.UTF_8);
+        actualBytes = actual.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public boolean checkOutput() {
+        return OutputChecker.checkOutput(expected, actual);
+    }
+
+    /**
+     * 按 docker 输出帧的大小 (约 4KB) 分块喂入
+     */
+    @Benchmark
+    public boolean streamingCompare() {
+        StreamingOutputComparator comparator = new StreamingOutputComparator(ByteBuffer.wrap(expectedBytes));
+        for (int offset = 0; offset < actualBytes.length; offset += 4096) {
+            comparator.feed(actualBytes, offset, Math.min(4096, actualBytes.length - offset));
+        }
+        return comparator.finish();
+    }
+}
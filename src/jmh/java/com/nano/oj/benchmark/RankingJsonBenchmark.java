@@ -0,0 +1,88 @@
+package com.nano.oj.benchmark;
+
+import cn.hutool.json.JSONUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nano.oj.model.dto.questionsubmit.JudgeInfo;
+import com.nano.oj.model.entity.ContestRanking;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 排行榜更新中的 JSON 往返 (ContestRankingServiceImpl.updateRanking)
+ * 与线上路径一致：submissionInfo 列经 JacksonTypeHandler 读成 Map (值为 LinkedHashMap)，
+ * 单题信息经 hutool 转 JSON 再转回 SubmissionInfo，解析提交的 judgeInfo，最后整列写回
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:+UseParallelGC"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class RankingJsonBenchmark {
+
+    // 比赛题目数
+    @Param({"5", "15"})
+    private int problems;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private String submissionInfoJson;
+
+    private String judgeInfoJson;
+
+    private String questionKey;
+
+    @Setup
+    public void setup() throws Exception {
+        Random random = new Random(42);
+        Map<String, ContestRanking.SubmissionInfo> submissionInfoMap = new LinkedHashMap<>();
+        for (int i = 0; i < problems; i++) {
+            ContestRanking.SubmissionInfo info = new ContestRanking.SubmissionInfo();
+            info.setStatus(random.nextInt(3));
+            info.setScore(random.nextInt(101));
+            info.setTime((long) random.nextInt(18000));
+            info.setErrorNum(random.nextInt(5));
+            submissionInfoMap.put(String.valueOf(1_000_000L + i), info);
+        }
+        submissionInfoJson = objectMapper.writeValueAsString(submissionInfoMap);
+        questionKey = String.valueOf(1_000_000L + problems / 2);
+
+        JudgeInfo judgeInfo = new JudgeInfo();
+        judgeInfo.setMessage("Accepted");
+        judgeInfo.setTime(123L);
+        judgeInfo.setWallTime(130L);
+        judgeInfo.setMemory(20480L);
+        judgeInfo.setScore(100);
+        judgeInfoJson = JSONUtil.toJsonStr(judgeInfo);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public String updateRankingRoundTrip() throws Exception {
+        Map<String, Object> submissionInfoMap = objectMapper.readValue(submissionInfoJson, Map.class);
+        Object rawInfo = submissionInfoMap.get(questionKey);
+        ContestRanking.SubmissionInfo problemInfo = JSONUtil.toBean(JSONUtil.toJsonStr(rawInfo), ContestRanking.SubmissionInfo.class);
+        JudgeInfo judgeInfo = JSONUtil.toBean(judgeInfoJson, JudgeInfo.class);
+        if ("Accepted".equals(judgeInfo.getMessage())) {
+            problemInfo.setStatus(1);
+        } else {
+            problemInfo.setErrorNum(problemInfo.getErrorNum() + 1);
+        }
+        submissionInfoMap.put(questionKey, problemInfo);
+        return objectMapper.writeValueAsString(submissionInfoMap);
+    }
+}
@@ -0,0 +1,100 @@
+package com.nano.oj.benchmark;
+
+import cn.hutool.json.JSONUtil;
+import com.nano.oj.model.dto.problem.JudgeConfig;
+import com.nano.oj.model.dto.questionsubmit.JudgeInfo;
+import com.nano.oj.model.entity.Problem;
+import com.nano.oj.model.entity.QuestionSubmit;
+import com.nano.oj.model.vo.ProblemVO;
+import com.nano.oj.model.vo.QuestionSubmitVO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实体转 VO：ProblemVO.objToVo (题目详情、列表) 和 QuestionSubmitVO.objToVo (提交列表每行一次)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:+UseParallelGC"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class VoConvertBenchmark {
+
+    private Problem problem;
+
+    private QuestionSubmit questionSubmit;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+
+        JudgeConfig judgeConfig = new JudgeConfig();
+        judgeConfig.setTimeLimit(1000L);
+        judgeConfig.setMemoryLimit(262144L);
+        judgeConfig.setStackLimit(262144L);
+
+        problem = new Problem();
+        problem.setId(1_000_000L);
+        problem.setTitle("A + B Problem");
+        problem.setContent(randomText(random, 4096));
+        problem.setAnswer(randomText(random, 1024));
+        problem.setSubmitNum(1000);
+        problem.setAcceptedNum(500);
+        problem.setJudgeConfig(JSONUtil.toJsonStr(judgeConfig));
+        problem.setTestDataManifest("1000000/0123456789abcdef");
+        problem.setUserId(1L);
+        problem.setCreateTime(new Date(0));
+        problem.setUpdateTime(new Date(0));
+
+        JudgeInfo judgeInfo = new JudgeInfo();
+        judgeInfo.setMessage("Wrong Answer");
+        judgeInfo.setDetail("Wrong Answer on test 3");
+        judgeInfo.setTime(15L);
+        judgeInfo.setWallTime(18L);
+        judgeInfo.setMemory(10240L);
+        judgeInfo.setScore(0);
+
+        questionSubmit = new QuestionSubmit();
+        questionSubmit.setId(2_000_000L);
+        questionSubmit.setLanguage("cpp");
+        questionSubmit.setCode(randomText(random, 2048));
+        questionSubmit.setJudgeInfo(JSONUtil.toJsonStr(judgeInfo));
+        questionSubmit.setStatus(2);
+        questionSubmit.setQuestionId(1_000_000L);
+        questionSubmit.setUserId(1L);
+        questionSubmit.setCreateTime(new Date(0));
+        questionSubmit.setUpdateTime(new Date(0));
+        questionSubmit.setScore(0);
+    }
+
+    @Benchmark
+    public ProblemVO problemObjToVo() {
+        return ProblemVO.objToVo(problem);
+    }
+
+    @Benchmark
+    public QuestionSubmitVO questionSubmitObjToVo() {
+        return QuestionSubmitVO.objToVo(questionSubmit);
+    }
+
+    static String randomText(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(i % 64 == 63 ? '\n' : (char) ('a' + random.nextInt(26)));
+        }
+        return builder.toString();
+    }
+}
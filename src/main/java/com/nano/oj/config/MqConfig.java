@@ -1,9 +1,14 @@
 package com.nano.oj.config;
 
+import org.springframework.amqp.core.AcknowledgeMode;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.DirectExchange;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -15,6 +20,32 @@ public class MqConfig {
     public static final String JUDGE_QUEUE = "oj_judge_queue";
     public static final String JUDGE_ROUTING_KEY = "oj_judge_routing_key";
 
+    // 判题任务队列：提交后发布提交 id，由判题 worker 消费
+    public static final String JUDGE_TASK_QUEUE = "oj_judge_task_queue";
+    public static final String JUDGE_TASK_ROUTING_KEY = "oj_judge_task_routing_key";
+    // 判题失败的任务转入死信队列，便于排查和手动重投
+    public static final String JUDGE_TASK_DLQ = "oj_judge_task_dlq";
+
+    // 判题任务优先级：比赛提交优先出队
+    public static final int JUDGE_TASK_MAX_PRIORITY = 10;
+    public static final int JUDGE_TASK_PRIORITY_CONTEST = 5;
+    public static final int JUDGE_TASK_PRIORITY_PRACTICE = 1;
+
+    // 每个消费者未确认的消息上限，判题耗时长，默认一次只拿一个，避免消息压在忙碌的 worker 上
+    @Value("${judge.worker.prefetch:1}")
+    private int workerPrefetch;
+
+    // 每个 worker 进程的消费者数 (即同时判题数)
+    @Value("${judge.worker.concurrency:4}")
+    private int workerConcurrency;
+
+    // 排行榜更新消费者每批最多拉取的消息数，以及凑批最多等待的时间 (ms)
+    @Value("${ranking.consumer.batch-size:50}")
+    private int rankingBatchSize;
+
+    @Value("${ranking.consumer.receive-timeout:200}")
+    private long rankingReceiveTimeout;
+
     @Bean
     public Queue judgeQueue() {
         // true 表示持久化，重启 MQ 队列还在
@@ -30,4 +61,56 @@ public class MqConfig {
     public Binding judgeBinding() {
         return BindingBuilder.bind(judgeQueue()).to(judgeExchange()).with(JUDGE_ROUTING_KEY);
     }
-}
\ No newline at end of file
+
+    @Bean
+    public Queue judgeTaskQueue() {
+        return QueueBuilder.durable(JUDGE_TASK_QUEUE)
+                .maxPriority(JUDGE_TASK_MAX_PRIORITY)
+                .deadLetterExchange("")
+                .deadLetterRoutingKey(JUDGE_TASK_DLQ)
+                .build();
+    }
+
+    @Bean
+    public Queue judgeTaskDeadLetterQueue() {
+        return QueueBuilder.durable(JUDGE_TASK_DLQ).build();
+    }
+
+    @Bean
+    public Binding judgeTaskBinding() {
+        return BindingBuilder.bind(judgeTaskQueue()).to(judgeExchange()).with(JUDGE_TASK_ROUTING_KEY);
+    }
+
+    /**
+     * 判题 worker 的监听容器：手动确认，判题结果落库后才 ack
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory judgeTaskListenerFactory(ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setPrefetchCount(workerPrefetch);
+        factory.setConcurrentConsumers(workerConcurrency);
+        factory.setMaxConcurrentConsumers(workerConcurrency);
+        return factory;
+    }
+
+    /**
+     * 排行榜更新的监听容器：批量消费，一批处理完后整批确认
+     * 单消费者，保证同一用户的提交按判题完成顺序累加
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory rankingBatchListenerFactory(ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(rankingBatchSize);
+        factory.setReceiveTimeout(rankingReceiveTimeout);
+        factory.setPrefetchCount(rankingBatchSize * 2);
+        factory.setConcurrentConsumers(1);
+        factory.setMaxConcurrentConsumers(1);
+        return factory;
+    }
+}
@@ -15,10 +15,14 @@ import com.nano.oj.model.dto.problem.DeleteRequest;
 import com.nano.oj.model.entity.*;
 import com.nano.oj.model.vo.ContestAdminVO;
 import com.nano.oj.model.vo.ContestProblemSimpleVO;
+import com.nano.oj.model.vo.ContestRankAroundVO;
+import com.nano.oj.model.vo.ContestRankRevealVO;
 import com.nano.oj.model.vo.ContestVO;
 import com.nano.oj.service.*;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.annotation.Resource;
@@ -36,6 +40,9 @@ import java.util.stream.Collectors;
 @RequestMapping("/contest")
 public class ContestController {
 
+    // 我的排名前后最多各取的记录数
+    private static final int MAX_RANK_WINDOW = 50;
+
     @Resource
     private ContestApplyMapper contestApplyMapper;
 
@@ -287,7 +294,7 @@ public class ContestController {
      * 地址：POST /contest/rank/list/page
      */
     @PostMapping("/rank/list/page")
-    public BaseResponse<Page<ContestRanking>> getContestRank(@RequestBody ContestRankQueryRequest contestRankQueryRequest) {
+    public ResponseEntity<byte[]> getContestRank(@RequestBody ContestRankQueryRequest contestRankQueryRequest) {
         if (contestRankQueryRequest == null || contestRankQueryRequest.getContestId() == null) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR);
         }
@@ -296,8 +303,39 @@ public class ContestController {
         long size = contestRankQueryRequest.getPageSize();
         Long contestId = contestRankQueryRequest.getContestId();
 
-        // 调用 Service
-        Page<ContestRanking> page = contestService.getContestRank(contestId, current, size);
-        return ResultUtils.success(page);
+        // 响应体由 Service 编码 (进行中的比赛直接写出序列化快照)，结构与 BaseResponse<Page<ContestRanking>> 相同
+        byte[] body = contestService.getContestRankJson(contestId, current, size);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * 我的排名及前后的排行记录 (不用翻页找自己)
+     * 地址：POST /contest/rank/me
+     */
+    @PostMapping("/rank/me")
+    public BaseResponse<ContestRankAroundVO> getMyContestRank(@RequestBody ContestRankAroundRequest contestRankAroundRequest,
+                                                              HttpServletRequest request) {
+        if (contestRankAroundRequest == null || contestRankAroundRequest.getContestId() == null) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR);
+        }
+        int window = contestRankAroundRequest.getWindow() == null ? 5 : contestRankAroundRequest.getWindow();
+        if (window < 0 || window > MAX_RANK_WINDOW) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "window 取值范围 0 ~ " + MAX_RANK_WINDOW);
+        }
+        User loginUser = userService.getLoginUser(request);
+        return ResultUtils.success(contestService.getMyContestRank(contestRankAroundRequest.getContestId(), window, loginUser));
+    }
+
+    /**
+     * 揭榜 (ACM 封榜的比赛结束后)，返回封榜榜单和揭晓顺序供前端滚榜
+     * 地址：POST /contest/rank/unfreeze
+     */
+    @PostMapping("/rank/unfreeze")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<ContestRankRevealVO> unfreezeContestRank(@RequestBody ContestUnfreezeRequest contestUnfreezeRequest) {
+        if (contestUnfreezeRequest == null || contestUnfreezeRequest.getContestId() == null) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR);
+        }
+        return ResultUtils.success(contestService.unfreezeContestRank(contestUnfreezeRequest.getContestId()));
     }
-}
\ No newline at end of file
+}
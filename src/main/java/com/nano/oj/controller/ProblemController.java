@@ -9,6 +9,8 @@ import com.nano.oj.common.BaseResponse;
 import com.nano.oj.common.ErrorCode;
 import com.nano.oj.common.ResultUtils;
 import com.nano.oj.exception.BusinessException;
+import com.nano.oj.judge.testdata.TestData;
+import com.nano.oj.judge.testdata.TestDataStore;
 import com.nano.oj.model.dto.problem.*;
 import com.nano.oj.model.entity.Problem;
 import com.nano.oj.model.entity.User;
@@ -37,6 +39,9 @@ public class ProblemController {
     @Resource
     private UserService userService;
 
+    @Resource
+    private TestDataStore testDataStore;
+
     private final static Gson GSON = new Gson();
 
     /**
@@ -148,6 +153,11 @@ public class ProblemController {
         if (!problem.getUserId().equals(loginUser.getId()) && !userService.isAdmin(loginUser)) {
             throw new BusinessException(ErrorCode.NO_AUTH_ERROR);
         }
+        // 用例已迁移到测试数据存储，回显给编辑页面
+        if (StringUtils.isNotBlank(problem.getTestDataManifest())) {
+            problem.setJudgeCase(JSONUtil.toJsonStr(testDataStore.readCases(problem.getTestDataManifest())));
+            problem.setChecker(testDataStore.readChecker(problem.getTestDataManifest()));
+        }
         return ResultUtils.success(problem);
     }
 
@@ -176,9 +186,15 @@ public class ProblemController {
         // 3. 构造 VO（此处需要注意：objToVo 不再能自动填充 tags，需要 Service 层支持或者单独查）
         ProblemVO problemVO = problemService.getProblemVO(problem, request);
 
-        // 脱敏
+        // 脱敏 (只展示第一个用例作为样例)
         String judgeCaseStr = problem.getJudgeCase();
-        if (StringUtils.isNotBlank(judgeCaseStr)) {
+        if (StringUtils.isNotBlank(problem.getTestDataManifest())) {
+            TestData testData = testDataStore.load(problem.getTestDataManifest());
+            JudgeCase sample = new JudgeCase();
+            sample.setInput(testData.readInput(0));
+            sample.setOutput(testData.readOutput(0));
+            problemVO.setJudgeCase(Collections.singletonList(sample));
+        } else if (StringUtils.isNotBlank(judgeCaseStr)) {
             List<JudgeCase> judgeCaseList = JSONUtil.toList(judgeCaseStr, JudgeCase.class);
             if (CollUtil.isNotEmpty(judgeCaseList)) {
                 problemVO.setJudgeCase(Collections.singletonList(judgeCaseList.getFirst()));
@@ -6,6 +6,7 @@ import com.nano.oj.common.BaseResponse;
 import com.nano.oj.common.ErrorCode;
 import com.nano.oj.common.ResultUtils;
 import com.nano.oj.exception.BusinessException;
+import com.nano.oj.judge.scheduler.JudgeAdmission;
 import com.nano.oj.model.dto.questionsubmit.JudgeInfo;
 import com.nano.oj.model.dto.questionsubmit.QuestionRunRequest;
 import com.nano.oj.model.dto.questionsubmit.QuestionSubmitAddRequest;
@@ -46,6 +47,9 @@ public class QuestionSubmitController {
     @Resource
     private ContestService contestService;
 
+    @Resource
+    private JudgeAdmission judgeAdmission;
+
     /**
      * 提交代码
      */
@@ -57,6 +61,8 @@ public class QuestionSubmitController {
         }
 
         final User loginUser = userService.getLoginUser(request);
+        // 准入控制：用户限速 + 全局排队深度，超限返回 429
+        judgeAdmission.admit(JudgeAdmission.Kind.SUBMIT, loginUser.getId());
 
         // 调用 QuestionSubmitService
         long questionSubmitId = questionSubmitService.doQuestionSubmit(questionSubmitAddRequest, loginUser);
@@ -190,6 +196,7 @@ public class QuestionSubmitController {
         }
         // 登录校验
         User loginUser = userService.getLoginUser(request);
+        judgeAdmission.admit(JudgeAdmission.Kind.RUN, loginUser.getId());
 
         QuestionSubmitVO res = questionSubmitService.doQuestionRun(runRequest, loginUser);
         return ResultUtils.success(res);
@@ -4,6 +4,9 @@ import com.nano.oj.common.BaseResponse;
 import com.nano.oj.common.ErrorCode;
 import com.nano.oj.common.ResultUtils;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
@@ -14,6 +17,17 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 @Slf4j
 public class GlobalExceptionHandler {
 
+    /**
+     * 捕获限流异常：返回 HTTP 429，并通过 Retry-After 告诉客户端多久后重试
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<BaseResponse<?>> tooManyRequestsExceptionHandler(TooManyRequestsException e) {
+        log.warn("TooManyRequestsException: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(ResultUtils.error(e.getCode(), e.getMessage()));
+    }
+
     /**
      * 捕获业务异常
      */
@@ -0,0 +1,23 @@
+package com.nano.oj.exception;
+
+import com.nano.oj.common.ErrorCode;
+
+/**
+ * 限流异常 (HTTP 429)
+ */
+public class TooManyRequestsException extends BusinessException {
+
+    /**
+     * 建议客户端多少秒后重试 (Retry-After)
+     */
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(ErrorCode.TOO_MANY_REQUEST_ERROR, message);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -4,16 +4,23 @@ import cn.hutool.json.JSONUtil;
 import com.nano.oj.common.ErrorCode;
 import com.nano.oj.config.MqConfig;
 import com.nano.oj.exception.BusinessException;
+import com.nano.oj.judge.cache.VerdictCache;
+import com.nano.oj.judge.checker.CompareMode;
+import com.nano.oj.judge.checker.OutputChecker;
 import com.nano.oj.judge.codesandbox.CodeSandbox;
 import com.nano.oj.judge.codesandbox.model.ExecuteCodeRequest;
 import com.nano.oj.judge.codesandbox.model.ExecuteCodeResponse;
-import com.nano.oj.model.dto.problem.JudgeCase;
+import com.nano.oj.judge.metrics.JudgeMetrics;
+import com.nano.oj.judge.metrics.JudgePhaseTimings;
+import com.nano.oj.judge.testdata.TestData;
 import com.nano.oj.model.dto.problem.JudgeConfig;
 import com.nano.oj.model.dto.questionsubmit.JudgeInfo;
+import com.nano.oj.model.entity.Contest;
 import com.nano.oj.model.entity.ContestProblem; // 引入实体
 import com.nano.oj.model.entity.Problem;
 import com.nano.oj.model.entity.QuestionSubmit;
 import com.nano.oj.service.ContestProblemService; // 引入服务
+import com.nano.oj.service.ContestService;
 import com.nano.oj.service.ProblemService;
 import com.nano.oj.service.QuestionSubmitService;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper; // 引入 MP Wrapper
@@ -23,7 +30,7 @@ import org.springframework.stereotype.Service;
 
 import jakarta.annotation.Resource;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
@@ -39,17 +46,36 @@ public class JudgeServiceImpl implements JudgeService {
     private ContestProblemService contestProblemService; // ✅ 1. 注入比赛题目服务
 
     @Resource
-    private CodeSandbox dockerCodeSandbox;
+    private ContestService contestService;
+
+    @Resource
+    private CodeSandbox codeSandbox;
 
     @Resource
     private RabbitTemplate rabbitTemplate;
 
+    @Resource
+    private VerdictCache verdictCache;
+
+    @Resource
+    private JudgeMetrics judgeMetrics;
+
     @Override
     public QuestionSubmit doJudge(long questionSubmitId) {
-        // 1. 获取提交记录
+        JudgePhaseTimings timings = new JudgePhaseTimings();
+        long phaseStart = System.nanoTime();
+        // 1. 抢占提交：一条条件更新完成“待判题 -> 判题中”，多个 worker 同时判同一条提交时只有一个能成功
+        if (!claim(questionSubmitId)) {
+            if (questionSubmitService.getById(questionSubmitId) == null) {
+                throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "提交信息不存在");
+            }
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "题目正在判题中");
+        }
         QuestionSubmit questionSubmit = questionSubmitService.getById(questionSubmitId);
-        if (questionSubmit == null) {
-            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "提交信息不存在");
+        if (questionSubmit.getCreateTime() != null) {
+            // 排队等待：从提交落库到被 worker 抢到
+            long waitMillis = System.currentTimeMillis() - questionSubmit.getCreateTime().getTime();
+            timings.put(JudgePhaseTimings.QUEUE_WAIT, TimeUnit.MILLISECONDS.toNanos(waitMillis));
         }
 
         // 2. 获取题目信息
@@ -59,45 +85,52 @@ public class JudgeServiceImpl implements JudgeService {
             throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "题目不存在");
         }
 
-        // 3. 校验状态
-        if (!questionSubmit.getStatus().equals(0)) {
-            throw new BusinessException(ErrorCode.OPERATION_ERROR, "题目正在判题中");
-        }
-
-        // 4. 更新状态为“判题中”
-        QuestionSubmit updateQuestionSubmit = new QuestionSubmit();
-        updateQuestionSubmit.setId(questionSubmitId);
-        updateQuestionSubmit.setStatus(1);
-        boolean update = questionSubmitService.updateById(updateQuestionSubmit);
-        if (!update) {
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "更新题目状态失败");
-        }
-
-        // 5. 准备判题参数
-        String judgeCaseStr = problem.getJudgeCase();
-        List<JudgeCase> judgeCaseList = JSONUtil.toList(judgeCaseStr, JudgeCase.class);
+        // 5. 准备判题参数 (用例从测试数据存储按文件加载，不再解析 judgeCase JSON)
+        TestData testData = problemService.getTestData(problem);
         // 如果题目没有判题用例，防御性处理
-        if (judgeCaseList == null || judgeCaseList.isEmpty()) {
+        if (testData.size() == 0) {
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "题目判题用例缺失");
         }
 
-        List<String> inputList = judgeCaseList.stream().map(JudgeCase::getInput).collect(Collectors.toList());
-        List<String> expectedOutputList = judgeCaseList.stream().map(JudgeCase::getOutput).toList();
-
         JudgeConfig judgeConfig = JSONUtil.toBean(problem.getJudgeConfig(), JudgeConfig.class);
+        timings.add(JudgePhaseTimings.PROBLEM_LOAD, phaseStart);
         Long timeLimit = judgeConfig.getTimeLimit();
         Long memoryLimit = judgeConfig.getMemoryLimit();
+        CompareMode compareMode = CompareMode.of(judgeConfig.getCompareMode());
+        double epsilon = judgeConfig.getEpsilon() != null ? judgeConfig.getEpsilon() : CompareMode.DEFAULT_EPSILON;
+
+        // 6. 调用沙箱 (预期输出一并传入，由沙箱流式比对)
+        // 日常练习和 ACM 赛制只关心第一个失败点，开启 fail-fast；IOI / OI 需要部分分，跑完全部用例
+        boolean failFast = isFailFast(questionSubmit.getContestId());
+
+        // 同一份代码、同一版本测试数据、同一判题配置的结果可以直接复用
+        String verdictKey = null;
+        if (verdictCache.isEnabledFor(questionSubmit.getContestId())) {
+            verdictKey = verdictCache.buildKey(questionSubmit.getLanguage(), questionSubmit.getCode(),
+                    testData.getVersion(), judgeConfig, questionSubmit.getContestId(), failFast);
+            JudgeInfo cachedJudgeInfo = verdictCache.get(verdictKey);
+            if (cachedJudgeInfo != null) {
+                log.info("🎯 判题结果缓存命中, 提交 id: {}, 结果: {}", questionSubmitId, cachedJudgeInfo.getMessage());
+                return updateAndNotify(questionSubmit, 2, cachedJudgeInfo, null, timings);
+            }
+        }
 
-        // 6. 调用沙箱
         ExecuteCodeRequest executeCodeRequest = ExecuteCodeRequest.builder()
                 .code(questionSubmit.getCode())
                 .language(questionSubmit.getLanguage())
-                .inputList(inputList)
+                .inputFileList(testData.getInputFiles())
                 .timeLimit(timeLimit)
                 .memoryLimit(memoryLimit * 1024L)
+                .expectedOutputFileList(testData.getOutputFiles())
+                .failFast(failFast)
+                .compareMode(compareMode)
+                .epsilon(epsilon)
+                .checkerLanguage(testData.getCheckerLanguage())
+                .checkerFile(testData.getCheckerFile())
+                .phaseTimings(timings)
                 .build();
 
-        ExecuteCodeResponse executeCodeResponse = dockerCodeSandbox.executeCode(executeCodeRequest);
+        ExecuteCodeResponse executeCodeResponse = codeSandbox.executeCode(executeCodeRequest);
 
         // 7. 初始化判题结果
         JudgeInfo judgeInfo = new JudgeInfo();
@@ -105,6 +138,7 @@ public class JudgeServiceImpl implements JudgeService {
         if (executeCodeResponse.getJudgeInfo() != null) {
             judgeInfo.setMemory(executeCodeResponse.getJudgeInfo().getMemory());
             judgeInfo.setTime(executeCodeResponse.getJudgeInfo().getTime());
+            judgeInfo.setWallTime(executeCodeResponse.getJudgeInfo().getWallTime());
         } else {
             judgeInfo.setMemory(0L);
             judgeInfo.setTime(0L);
@@ -117,59 +151,75 @@ public class JudgeServiceImpl implements JudgeService {
         if ("Compile Error".equals(executeCodeResponse.getMessage())) {
             judgeInfo.setMessage("Compile Error");
             judgeInfo.setDetail(executeCodeResponse.getJudgeInfo() != null ? executeCodeResponse.getJudgeInfo().getDetail() : "编译错误");
-            updateAndNotify(questionSubmitId, 2, judgeInfo);
-            return questionSubmitService.getById(questionSubmitId);
+            return updateAndNotify(questionSubmit, 2, judgeInfo, verdictKey, timings);
         }
 
         // B. 系统错误
         if ("System Error".equals(executeCodeResponse.getMessage())) {
             judgeInfo.setMessage("System Error");
             judgeInfo.setDetail(executeCodeResponse.getJudgeInfo() != null ? executeCodeResponse.getJudgeInfo().getDetail() : "系统错误");
-            updateAndNotify(questionSubmitId, 3, judgeInfo);
-            return questionSubmitService.getById(questionSubmitId);
+            return updateAndNotify(questionSubmit, 3, judgeInfo, verdictKey, timings);
+        }
+
+        // C. 输出超限
+        if ("Output Limit Exceeded".equals(executeCodeResponse.getMessage())) {
+            judgeInfo.setMessage("Output Limit Exceeded");
+            return updateAndNotify(questionSubmit, 2, judgeInfo, verdictKey, timings);
         }
 
-        // C. 运行错误
+        // D. 运行错误
         if (executeCodeResponse.getStatus() != 1) {
             judgeInfo.setMessage("Runtime Error");
             judgeInfo.setDetail(executeCodeResponse.getMessage());
-            updateAndNotify(questionSubmitId, 2, judgeInfo);
-            return questionSubmitService.getById(questionSubmitId);
+            return updateAndNotify(questionSubmit, 2, judgeInfo, verdictKey, timings);
         }
 
-        // D. 超时
+        // E. 超时
         if (timeLimit > 0 && judgeInfo.getTime() > timeLimit) {
             judgeInfo.setMessage("Time Limit Exceeded");
-            updateAndNotify(questionSubmitId, 2, judgeInfo);
-            return questionSubmitService.getById(questionSubmitId);
+            return updateAndNotify(questionSubmit, 2, judgeInfo, verdictKey, timings);
         }
 
-        // E. 超内存
+        // F. 超内存
         if (memoryLimit > 0 && judgeInfo.getMemory() > memoryLimit) {
             judgeInfo.setMessage("Memory Limit Exceeded");
-            updateAndNotify(questionSubmitId, 2, judgeInfo);
-            return questionSubmitService.getById(questionSubmitId);
+            return updateAndNotify(questionSubmit, 2, judgeInfo, verdictKey, timings);
         }
 
-        // F. 输出数量检查
+        // G. 输出数量检查 (fail-fast 模式下沙箱在第一个失败用例处停止，输出可以少于用例数)
         List<String> outputList = executeCodeResponse.getOutputList();
-        if (outputList == null || outputList.size() != inputList.size()) {
+        if (outputList == null || outputList.size() > testData.size()
+                || (!failFast && outputList.size() != testData.size())) {
             judgeInfo.setMessage("Wrong Answer");
             judgeInfo.setDetail("输出结果数量不匹配");
-            updateAndNotify(questionSubmitId, 2, judgeInfo);
-            return questionSubmitService.getById(questionSubmitId);
+            return updateAndNotify(questionSubmit, 2, judgeInfo, verdictKey, timings);
         }
 
         // ==================== ✅ 核心判题逻辑修正 ====================
 
         // 1. 统计通过数
         int passCount = 0;
-        int totalCount = judgeCaseList.size();
-        for (int i = 0; i < totalCount; i++) {
-            if (checkOutput(expectedOutputList.get(i), outputList.get(i))) {
+        int totalCount = testData.size();
+        int firstFailedCase = -1;
+        // 沙箱已流式比对过完整输出时直接用其结果 (outputList 只保留了用于展示的前一部分)
+        List<Boolean> passList = executeCodeResponse.getPassList();
+        boolean useSandboxResult = passList != null && passList.size() == outputList.size();
+        for (int i = 0; i < outputList.size(); i++) {
+            boolean passed = useSandboxResult
+                    ? passList.get(i) : OutputChecker.checkOutput(testData.mapOutput(i), outputList.get(i), compareMode, epsilon);
+            if (passed) {
                 passCount++;
+            } else if (firstFailedCase < 0) {
+                firstFailedCase = i;
+                if (failFast) {
+                    break;
+                }
             }
         }
+        if (firstFailedCase < 0 && outputList.size() < totalCount) {
+            // 沙箱提前停止但所有已运行用例都通过，说明停止点之后的用例未执行
+            firstFailedCase = outputList.size();
+        }
 
         // 2. ✅ 获取题目满分配置 (关键修复)
         int maxScore = 100; // 默认满分 100
@@ -199,14 +249,39 @@ public class JudgeServiceImpl implements JudgeService {
             judgeInfo.setMessage("Accepted");
         } else {
             judgeInfo.setMessage("Wrong Answer");
-            judgeInfo.setDetail("Passed: " + passCount + "/" + totalCount);
+            if (failFast) {
+                judgeInfo.setDetail("Wrong Answer on test " + (firstFailedCase + 1));
+            } else {
+                judgeInfo.setDetail("Passed: " + passCount + "/" + totalCount);
+            }
         }
 
-        updateAndNotify(questionSubmitId, 2, judgeInfo);
-        return questionSubmitService.getById(questionSubmitId);
+        return updateAndNotify(questionSubmit, 2, judgeInfo, verdictKey, timings);
+    }
+
+    /**
+     * 抢占待判题的提交 (status 0 -> 1)
+     *
+     * @return 是否由当前 worker 抢到
+     */
+    private boolean claim(long submitId) {
+        return questionSubmitService.lambdaUpdate()
+                .eq(QuestionSubmit::getId, submitId)
+                .eq(QuestionSubmit::getStatus, 0)
+                .set(QuestionSubmit::getStatus, 1)
+                .update();
     }
 
-    private void updateAndNotify(Long submitId, Integer status, JudgeInfo judgeInfo) {
+    /**
+     * 写入判题结果并通知排行榜
+     *
+     * @param verdictKey 判题结果缓存 key，不为 null 时把结果放入缓存
+     * @param timings    本次判题的各阶段耗时，写入结果后连同结果一起上报指标
+     * @return 写入结果后的提交记录 (直接在内存中合并，不再回查数据库)
+     */
+    private QuestionSubmit updateAndNotify(QuestionSubmit questionSubmit, Integer status, JudgeInfo judgeInfo,
+                                           String verdictKey, JudgePhaseTimings timings) {
+        Long submitId = questionSubmit.getId();
         QuestionSubmit updateQuestionSubmit = new QuestionSubmit();
         updateQuestionSubmit.setId(submitId);
         updateQuestionSubmit.setStatus(status);
@@ -214,31 +289,37 @@ public class JudgeServiceImpl implements JudgeService {
         // 将计算出的分数同步到 submit 表的 score 字段，方便排行榜直接读取
         updateQuestionSubmit.setScore(judgeInfo.getScore() != null ? judgeInfo.getScore() : 0);
 
+        long writeStart = System.nanoTime();
         boolean update = questionSubmitService.updateById(updateQuestionSubmit);
-
-        if (update) {
-            try {
-                rabbitTemplate.convertAndSend(MqConfig.JUDGE_EXCHANGE, MqConfig.JUDGE_ROUTING_KEY, String.valueOf(submitId));
-            } catch (Exception e) {
-                log.error("判题完成，MQ消息发送失败，submitId: {}", submitId, e);
-            }
+        if (!update) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "判题结果写入失败");
         }
-    }
+        timings.add(JudgePhaseTimings.DB_WRITE, writeStart);
+        judgeMetrics.record(timings, questionSubmit.getLanguage(), judgeInfo.getMessage());
 
-    private boolean checkOutput(String expected, String actual) {
-        if (expected == null) expected = "";
-        if (actual == null) actual = "";
+        if (verdictKey != null && status == 2) {
+            verdictCache.put(verdictKey, judgeInfo);
+        }
 
-        // 移除首尾空白字符 (trim)
-        // 更加稳健的比较：把所有连续空白字符(空格、制表符、换行)都视为一个分隔符
-        // 这样 "1 2" 和 "1   2" 或者 "1\n2" 都会被视为相等，符合大多数 OJ 规范
-        String[] expectedTokens = expected.trim().split("\\s+");
-        String[] actualTokens = actual.trim().split("\\s+");
+        questionSubmit.setStatus(updateQuestionSubmit.getStatus());
+        questionSubmit.setJudgeInfo(updateQuestionSubmit.getJudgeInfo());
+        questionSubmit.setScore(updateQuestionSubmit.getScore());
+        try {
+            rabbitTemplate.convertAndSend(MqConfig.JUDGE_EXCHANGE, MqConfig.JUDGE_ROUTING_KEY, String.valueOf(submitId));
+        } catch (Exception e) {
+            log.error("判题完成，MQ消息发送失败，submitId: {}", submitId, e);
+        }
+        return questionSubmit;
+    }
 
-        if (expectedTokens.length != actualTokens.length) return false;
-        for (int i = 0; i < expectedTokens.length; i++) {
-            if (!expectedTokens[i].equals(actualTokens[i])) return false;
+    /**
+     * 是否使用 fail-fast 模式：日常练习和 ACM 赛制 (type = 0) 开启
+     */
+    private boolean isFailFast(Long contestId) {
+        if (contestId == null || contestId <= 0) {
+            return true;
         }
-        return true;
+        Contest contest = contestService.getById(contestId);
+        return contest != null && Integer.valueOf(0).equals(contest.getType());
     }
-}
\ No newline at end of file
+}
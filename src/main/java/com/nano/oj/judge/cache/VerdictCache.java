@@ -0,0 +1,125 @@
+package com.nano.oj.judge.cache;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.json.JSONUtil;
+import com.nano.oj.model.dto.problem.JudgeConfig;
+import com.nano.oj.model.dto.questionsubmit.JudgeInfo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 判题结果缓存
+ * key = sha256(语言 + 归一化后的源码 + 测试数据版本 + 判题配置 + 比赛 id + 判题模式)。
+ * 同一份代码重复提交、测试数据未变的重判直接复用上次的 JudgeInfo，不再进沙箱。
+ * 只缓存确定性的结果 (通过 / 答案错误 / 编译错误)，超时、超内存等与机器负载相关的结果每次都重新判。
+ * 比赛提交默认不走缓存 (judge.verdict-cache.bypass-contest)。
+ */
+@Component
+@Slf4j
+public class VerdictCache {
+
+    private static final Set<String> CACHEABLE_MESSAGES = Set.of("Accepted", "Wrong Answer", "Compile Error");
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Value("${judge.verdict-cache.enabled:true}")
+    private boolean enabled;
+
+    // 比赛提交是否绕过缓存
+    @Value("${judge.verdict-cache.bypass-contest:true}")
+    private boolean bypassContest;
+
+    // 最多缓存的结果数，超出按 LRU 淘汰
+    @Value("${judge.verdict-cache.max-entries:10000}")
+    private int maxEntries;
+
+    // LRU：key -> 判题结果，accessOrder = true
+    private final LinkedHashMap<String, JudgeInfo> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JudgeInfo> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    private Counter hitCounter;
+
+    private Counter missCounter;
+
+    @PostConstruct
+    public void init() {
+        hitCounter = Counter.builder("judge.verdict.cache").tag("result", "hit")
+                .description("判题结果缓存命中次数").register(meterRegistry);
+        missCounter = Counter.builder("judge.verdict.cache").tag("result", "miss")
+                .description("判题结果缓存未命中次数").register(meterRegistry);
+        Gauge.builder("judge.verdict.cache.entries", this, VerdictCache::size)
+                .description("判题结果缓存条目数").register(meterRegistry);
+    }
+
+    /**
+     * 该提交是否使用缓存
+     */
+    public boolean isEnabledFor(Long contestId) {
+        return enabled && !(bypassContest && contestId != null && contestId > 0);
+    }
+
+    /**
+     * 构造缓存 key
+     * 源码只做不影响语义的归一化：统一换行符、去掉末尾空白；比赛 id 参与计算，因为比赛题目的满分可能不同
+     */
+    public String buildKey(String language, String code, String testDataVersion, JudgeConfig judgeConfig,
+                           Long contestId, boolean failFast) {
+        String normalizedCode = code == null ? "" : code.replace("\r\n", "\n").stripTrailing();
+        return DigestUtil.sha256Hex(language + "\n" + testDataVersion + "\n" + JSONUtil.toJsonStr(judgeConfig)
+                + "\n" + (contestId == null ? 0 : contestId) + "\n" + failFast + "\n" + normalizedCode);
+    }
+
+    /**
+     * @return 缓存的判题结果 (副本)，未命中返回 null
+     */
+    public JudgeInfo get(String key) {
+        JudgeInfo cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        if (cached == null) {
+            missCounter.increment();
+            return null;
+        }
+        hitCounter.increment();
+        return copy(cached);
+    }
+
+    public void put(String key, JudgeInfo judgeInfo) {
+        if (!CACHEABLE_MESSAGES.contains(judgeInfo.getMessage())) {
+            return;
+        }
+        JudgeInfo value = copy(judgeInfo);
+        synchronized (entries) {
+            entries.put(key, value);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static JudgeInfo copy(JudgeInfo judgeInfo) {
+        JudgeInfo copy = new JudgeInfo();
+        BeanUtils.copyProperties(judgeInfo, copy);
+        return copy;
+    }
+}
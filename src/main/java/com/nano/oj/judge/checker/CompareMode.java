@@ -0,0 +1,69 @@
+package com.nano.oj.judge.checker;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 输出比对模式，按题目在判题配置 (JudgeConfig.compareMode) 中选择
+ */
+public enum CompareMode {
+
+    /**
+     * 逐字节完全一致
+     */
+    EXACT("exact"),
+
+    /**
+     * 忽略空白差异的逐 token 比对 (默认)：所有连续空白视为一个分隔符，忽略首尾空白
+     */
+    TOKEN("token"),
+
+    /**
+     * 逐行比对：忽略每行行尾空白 (含 \r) 和输出末尾的空行，行内空白必须一致
+     */
+    LINE("line"),
+
+    /**
+     * 浮点比对：按 token 比对，两边都是数字的 token 在绝对或相对误差 epsilon 内视为相等
+     */
+    FLOAT("float");
+
+    // 浮点比对的默认误差
+    public static final double DEFAULT_EPSILON = 1e-6;
+
+    private final String value;
+
+    CompareMode(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * 按配置值取比对模式，未配置或无法识别时使用 TOKEN
+     */
+    public static CompareMode of(String value) {
+        for (CompareMode mode : values()) {
+            if (mode.value.equalsIgnoreCase(value)) {
+                return mode;
+            }
+        }
+        return TOKEN;
+    }
+
+    /**
+     * 创建该模式的流式比对器
+     *
+     * @param expected 预期输出 (UTF-8)，从 position 0 开始读，不修改其读写位置
+     * @param epsilon  浮点比对的误差，其他模式忽略
+     */
+    public OutputComparator newComparator(ByteBuffer expected, double epsilon) {
+        return switch (this) {
+            case EXACT -> new ExactOutputComparator(expected);
+            case TOKEN -> new StreamingOutputComparator(expected);
+            case LINE -> new LineOutputComparator(expected);
+            case FLOAT -> new FloatOutputComparator(expected, epsilon);
+        };
+    }
+}
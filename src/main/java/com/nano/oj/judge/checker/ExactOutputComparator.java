@@ -0,0 +1,50 @@
+package com.nano.oj.judge.checker;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 逐字节完全一致的流式比对器 ({@link CompareMode#EXACT})
+ */
+public class ExactOutputComparator implements OutputComparator {
+
+    private final ByteBuffer expected;
+
+    private final int expectedLength;
+
+    private int expectedPos;
+
+    private boolean mismatch;
+
+    public ExactOutputComparator(ByteBuffer expected) {
+        this.expected = expected;
+        this.expectedLength = expected.limit();
+    }
+
+    @Override
+    public boolean feed(byte[] data, int offset, int length) {
+        if (mismatch) {
+            return false;
+        }
+        if (length > expectedLength - expectedPos) {
+            mismatch = true;
+            return false;
+        }
+        for (int i = offset; i < offset + length; i++) {
+            if (expected.get(expectedPos++) != data[i]) {
+                mismatch = true;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean finish() {
+        return !mismatch && expectedPos == expectedLength;
+    }
+
+    @Override
+    public boolean isMismatch() {
+        return mismatch;
+    }
+}
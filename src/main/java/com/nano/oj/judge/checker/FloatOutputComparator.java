@@ -0,0 +1,222 @@
+package com.nano.oj.judge.checker;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 浮点流式比对器 ({@link CompareMode#FLOAT})
+ * 按 token 比对 (空白规则同 TOKEN 模式)，字节完全一致的 token 直接通过；
+ * 否则两边都能解析为数字时，绝对误差或相对误差不超过 epsilon 即视为相等。
+ * 数字 token 很短，只在固定大小的缓冲区里保留前 {@link #MAX_NUMBER_LENGTH} 个字节用于解析，超长的不一致 token 直接判错。
+ */
+public class FloatOutputComparator implements OutputComparator {
+
+    // 参与数值比较的 token 最大长度
+    private static final int MAX_NUMBER_LENGTH = 64;
+
+    // 尾数只保留前 18 位有效数字，超出的部分只影响量级，对误差比较足够
+    private static final int MAX_MANTISSA_DIGITS = 18;
+
+    private final ByteBuffer expected;
+
+    private final int expectedLength;
+
+    private final double epsilon;
+
+    private final byte[] actualToken = new byte[MAX_NUMBER_LENGTH];
+
+    private final byte[] expectedToken = new byte[MAX_NUMBER_LENGTH];
+
+    // 预期输出中下一个待查找 token 的位置
+    private int expectedPos;
+
+    // 当前 token 在预期输出中的范围 [tokenStart, tokenEnd)
+    private int tokenStart;
+
+    private int tokenEnd;
+
+    // 实际输出当前 token 的长度
+    private int actualLength;
+
+    // 当前 token 到目前为止是否与预期逐字节一致
+    private boolean sameBytes;
+
+    private boolean inToken;
+
+    private boolean mismatch;
+
+    public FloatOutputComparator(ByteBuffer expected, double epsilon) {
+        this.expected = expected;
+        this.expectedLength = expected.limit();
+        this.epsilon = epsilon;
+    }
+
+    @Override
+    public boolean feed(byte[] data, int offset, int length) {
+        if (mismatch) {
+            return false;
+        }
+        for (int i = offset; i < offset + length; i++) {
+            byte b = data[i];
+            if (OutputComparator.isWhitespace(b)) {
+                if (inToken) {
+                    inToken = false;
+                    if (!endToken()) {
+                        return false;
+                    }
+                }
+                continue;
+            }
+            if (!inToken && !startToken()) {
+                return false;
+            }
+            if (sameBytes) {
+                int pos = tokenStart + actualLength;
+                sameBytes = pos < tokenEnd && expected.get(pos) == b;
+            }
+            if (actualLength < MAX_NUMBER_LENGTH) {
+                actualToken[actualLength] = b;
+            } else if (!sameBytes) {
+                mismatch = true;
+                return false;
+            }
+            actualLength++;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean finish() {
+        if (mismatch || (inToken && !endToken())) {
+            return false;
+        }
+        for (int pos = expectedPos; pos < expectedLength; pos++) {
+            if (!OutputComparator.isWhitespace(expected.get(pos))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isMismatch() {
+        return mismatch;
+    }
+
+    /**
+     * 实际输出开始一个新 token：在预期输出中定位对应的 token
+     */
+    private boolean startToken() {
+        while (expectedPos < expectedLength && OutputComparator.isWhitespace(expected.get(expectedPos))) {
+            expectedPos++;
+        }
+        if (expectedPos >= expectedLength) {
+            mismatch = true;
+            return false;
+        }
+        tokenStart = expectedPos;
+        while (expectedPos < expectedLength && !OutputComparator.isWhitespace(expected.get(expectedPos))) {
+            expectedPos++;
+        }
+        tokenEnd = expectedPos;
+        actualLength = 0;
+        sameBytes = true;
+        inToken = true;
+        return true;
+    }
+
+    private boolean endToken() {
+        int expectedTokenLength = tokenEnd - tokenStart;
+        if (sameBytes && actualLength == expectedTokenLength) {
+            return true;
+        }
+        if (actualLength > MAX_NUMBER_LENGTH || expectedTokenLength > MAX_NUMBER_LENGTH) {
+            mismatch = true;
+            return false;
+        }
+        for (int i = 0; i < expectedTokenLength; i++) {
+            expectedToken[i] = expected.get(tokenStart + i);
+        }
+        double actualValue = parseNumber(actualToken, actualLength);
+        double expectedValue = parseNumber(expectedToken, expectedTokenLength);
+        if (Double.isNaN(actualValue) || Double.isNaN(expectedValue)) {
+            mismatch = true;
+            return false;
+        }
+        double diff = Math.abs(actualValue - expectedValue);
+        if (actualValue == expectedValue || diff <= epsilon || diff <= epsilon * Math.abs(expectedValue)) {
+            return true;
+        }
+        mismatch = true;
+        return false;
+    }
+
+    /**
+     * 解析十进制数字 [+-]digits[.digits][(e|E)[+-]digits]，不分配对象
+     *
+     * @return 解析结果，不是数字时返回 NaN
+     */
+    static double parseNumber(byte[] token, int length) {
+        int pos = 0;
+        boolean negative = false;
+        if (pos < length && (token[pos] == '-' || token[pos] == '+')) {
+            negative = token[pos] == '-';
+            pos++;
+        }
+        long mantissa = 0;
+        int mantissaDigits = 0;
+        int exponent = 0;
+        boolean hasDigit = false;
+        boolean afterPoint = false;
+        for (; pos < length; pos++) {
+            byte b = token[pos];
+            if (b == '.' && !afterPoint) {
+                afterPoint = true;
+                continue;
+            }
+            if (b < '0' || b > '9') {
+                break;
+            }
+            hasDigit = true;
+            if (mantissaDigits < MAX_MANTISSA_DIGITS) {
+                if (mantissa != 0 || b != '0') {
+                    mantissaDigits++;
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (afterPoint) {
+                    exponent--;
+                }
+            } else if (!afterPoint) {
+                exponent++;
+            }
+        }
+        if (!hasDigit) {
+            return Double.NaN;
+        }
+        if (pos < length && (token[pos] == 'e' || token[pos] == 'E')) {
+            pos++;
+            boolean negativeExponent = false;
+            if (pos < length && (token[pos] == '-' || token[pos] == '+')) {
+                negativeExponent = token[pos] == '-';
+                pos++;
+            }
+            if (pos >= length) {
+                return Double.NaN;
+            }
+            int value = 0;
+            for (; pos < length; pos++) {
+                byte b = token[pos];
+                if (b < '0' || b > '9') {
+                    return Double.NaN;
+                }
+                // 指数超过 double 的范围后结果已经是 0 或无穷，不必继续累加
+                value = Math.min(value * 10 + (b - '0'), 10000);
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        if (pos != length) {
+            return Double.NaN;
+        }
+        double result = exponent >= 0 ? mantissa * Math.pow(10, exponent) : mantissa / Math.pow(10, -exponent);
+        return negative ? -result : result;
+    }
+}
@@ -0,0 +1,111 @@
+package com.nano.oj.judge.checker;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 逐行流式比对器 ({@link CompareMode#LINE})
+ * 每行忽略行尾空白 (含 Windows 换行的 \r)，输出末尾的空行忽略；行内空白和中间的空行必须一致。
+ * 实际输出中的行内空白先不确定是“行内”还是“行尾”，只记录个数和是否已与预期输出不同，
+ * 遇到下一个非空白字符时不同即判错，遇到换行则按行尾空白忽略。
+ */
+public class LineOutputComparator implements OutputComparator {
+
+    private final ByteBuffer expected;
+
+    private final int expectedLength;
+
+    // 预期输出中下一个待比较的位置
+    private int expectedPos;
+
+    // 实际输出中尚未确定归属的行内空白个数
+    private int pendingSpaces;
+
+    // 这段空白是否已经与预期输出不同 (只能作为行尾空白被忽略)
+    private boolean spacesDiverged;
+
+    private boolean mismatch;
+
+    public LineOutputComparator(ByteBuffer expected) {
+        this.expected = expected;
+        this.expectedLength = expected.limit();
+    }
+
+    @Override
+    public boolean feed(byte[] data, int offset, int length) {
+        if (mismatch) {
+            return false;
+        }
+        for (int i = offset; i < offset + length; i++) {
+            byte b = data[i];
+            if (b == '\n') {
+                if (!endLine()) {
+                    return false;
+                }
+                continue;
+            }
+            if (OutputComparator.isWhitespace(b)) {
+                if (!spacesDiverged) {
+                    int pos = expectedPos + pendingSpaces;
+                    spacesDiverged = pos >= expectedLength || expected.get(pos) != b;
+                }
+                pendingSpaces++;
+                continue;
+            }
+            if (pendingSpaces > 0) {
+                // 空白后面还有内容，说明是行内空白，必须与预期输出一致
+                if (spacesDiverged) {
+                    mismatch = true;
+                    return false;
+                }
+                expectedPos += pendingSpaces;
+                pendingSpaces = 0;
+            }
+            if (expectedPos >= expectedLength || expected.get(expectedPos) != b) {
+                mismatch = true;
+                return false;
+            }
+            expectedPos++;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean finish() {
+        if (mismatch || !endLine()) {
+            return false;
+        }
+        // 预期输出剩下的只能是空行
+        for (int pos = expectedPos; pos < expectedLength; pos++) {
+            if (!OutputComparator.isWhitespace(expected.get(pos))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isMismatch() {
+        return mismatch;
+    }
+
+    /**
+     * 实际输出的一行结束：预期输出的当前行也必须在这里结束 (允许行尾空白)
+     * 预期输出已经结束时，实际输出多出的只能是空行
+     */
+    private boolean endLine() {
+        while (expectedPos < expectedLength && expected.get(expectedPos) != '\n'
+                && OutputComparator.isWhitespace(expected.get(expectedPos))) {
+            expectedPos++;
+        }
+        if (expectedPos < expectedLength) {
+            if (expected.get(expectedPos) != '\n') {
+                mismatch = true;
+                return false;
+            }
+            expectedPos++;
+        }
+        pendingSpaces = 0;
+        spacesDiverged = false;
+        return true;
+    }
+}
@@ -0,0 +1,39 @@
+package com.nano.oj.judge.checker;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 输出比对工具
+ * 沙箱 (fail-fast 逐用例比对) 和判题服务共用同一套比对规则 ({@link CompareMode})，
+ * 整体比对也走流式比对器：不用正则切分，不按 token 分配字符串。
+ */
+public class OutputChecker {
+
+    private OutputChecker() {
+    }
+
+    /**
+     * 忽略空白差异的逐 token 比对
+     */
+    public static boolean checkOutput(String expected, String actual) {
+        return checkOutput(expected, actual, CompareMode.TOKEN, CompareMode.DEFAULT_EPSILON);
+    }
+
+    /**
+     * 按指定模式比对
+     */
+    public static boolean checkOutput(String expected, String actual, CompareMode mode, double epsilon) {
+        byte[] expectedBytes = (expected == null ? "" : expected).getBytes(StandardCharsets.UTF_8);
+        return checkOutput(ByteBuffer.wrap(expectedBytes), actual, mode, epsilon);
+    }
+
+    /**
+     * 按指定模式比对，预期输出可以是测试数据文件的内存映射
+     */
+    public static boolean checkOutput(ByteBuffer expected, String actual, CompareMode mode, double epsilon) {
+        byte[] actualBytes = (actual == null ? "" : actual).getBytes(StandardCharsets.UTF_8);
+        OutputComparator comparator = mode.newComparator(expected, epsilon);
+        return comparator.feed(actualBytes, 0, actualBytes.length) && comparator.finish();
+    }
+}
@@ -0,0 +1,31 @@
+package com.nano.oj.judge.checker;
+
+/**
+ * 流式输出比对器
+ * 程序输出按块 (docker 的输出帧) 边到边比，不缓存实际输出，第一个不一致的字节出现时即可判定答案错误。
+ * 预期输出以 ByteBuffer 提供 (可以是测试数据文件的内存映射)，比对过程不按 token / 行分配对象。
+ * 不同的比对规则见 {@link CompareMode}。
+ */
+public interface OutputComparator {
+
+    /**
+     * 喂入一段实际输出
+     *
+     * @return 目前为止是否仍然一致，返回 false 后不必再继续喂入
+     */
+    boolean feed(byte[] data, int offset, int length);
+
+    /**
+     * 输出结束，判断是否完全一致
+     */
+    boolean finish();
+
+    boolean isMismatch();
+
+    /**
+     * 空白字符，与 {@code \s} 一致：空格、\t、\n、\u000B、\f、\r
+     */
+    static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+    }
+}
@@ -0,0 +1,96 @@
+package com.nano.oj.judge.checker;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 逐 token 流式比对器 ({@link CompareMode#TOKEN}，默认模式)
+ * 所有连续空白视为一个分隔符，忽略首尾空白。
+ * 不缓存实际输出，第一个不一致的字节出现时即可判定答案错误，调用方据此立即杀掉程序。
+ * 空白字符与 {@code \s} 一致：空格、\t、\n、\u000B、\f、\r，UTF-8 多字节字符逐字节比较即可。
+ * 预期输出可以直接是测试数据文件的内存映射，不必读入堆。
+ */
+public class StreamingOutputComparator implements OutputComparator {
+
+    private final ByteBuffer expected;
+
+    private final int expectedLength;
+
+    // 预期输出中下一个待比较的位置
+    private int expectedPos;
+
+    // 实际输出当前是否处在一个 token 内部
+    private boolean inToken;
+
+    private boolean mismatch;
+
+    public StreamingOutputComparator(String expected) {
+        this(ByteBuffer.wrap((expected == null ? "" : expected).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * @param expected 预期输出 (UTF-8)，从 position 0 开始读，不修改其读写位置
+     */
+    public StreamingOutputComparator(ByteBuffer expected) {
+        this.expected = expected;
+        this.expectedLength = expected.limit();
+    }
+
+    @Override
+    public boolean feed(byte[] data, int offset, int length) {
+        if (mismatch) {
+            return false;
+        }
+        for (int i = offset; i < offset + length; i++) {
+            byte b = data[i];
+            if (isWhitespace(b)) {
+                // 实际输出的 token 结束，预期输出的 token 也必须在这里结束
+                if (inToken) {
+                    if (expectedPos < expectedLength && !isWhitespace(expected.get(expectedPos))) {
+                        mismatch = true;
+                        return false;
+                    }
+                    inToken = false;
+                }
+                continue;
+            }
+            if (!inToken) {
+                // 新 token 开始，跳过预期输出中的空白
+                while (expectedPos < expectedLength && isWhitespace(expected.get(expectedPos))) {
+                    expectedPos++;
+                }
+                inToken = true;
+            }
+            if (expectedPos >= expectedLength || expected.get(expectedPos) != b) {
+                mismatch = true;
+                return false;
+            }
+            expectedPos++;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean finish() {
+        if (mismatch) {
+            return false;
+        }
+        if (inToken && expectedPos < expectedLength && !isWhitespace(expected.get(expectedPos))) {
+            return false;
+        }
+        int pos = expectedPos;
+        while (pos < expectedLength && isWhitespace(expected.get(pos))) {
+            pos++;
+        }
+        return pos == expectedLength;
+    }
+
+    @Override
+    public boolean isMismatch() {
+        return mismatch;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return OutputComparator.isWhitespace(b);
+    }
+}
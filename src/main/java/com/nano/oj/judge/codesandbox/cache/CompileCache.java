@@ -0,0 +1,216 @@
+package com.nano.oj.judge.codesandbox.cache;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 编译产物缓存 (内容寻址)
+ * key = sha256(语言 + 编译镜像 + 归一化后的源码)，value = 编译生成的 Main.class / main 等文件。
+ * 同一份代码重复提交、重判、自测运行时直接复用产物，跳过 javac / g++ 容器。
+ * 磁盘目录：<dir>/<key>/，按 LRU 淘汰，总大小不超过 max-bytes。
+ */
+@Component
+@Slf4j
+public class CompileCache {
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Value("${sandbox.compile-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sandbox.compile-cache.dir:${user.dir}/tempCode/compile-cache}")
+    private String cacheDirPath;
+
+    // 缓存总大小上限 (Byte)，默认 512MB
+    @Value("${sandbox.compile-cache.max-bytes:536870912}")
+    private long maxBytes;
+
+    // LRU 索引：key -> 产物大小 (Byte)，accessOrder = true
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    private File cacheDir;
+
+    private Counter hitCounter;
+
+    private Counter missCounter;
+
+    @PostConstruct
+    public void init() {
+        hitCounter = Counter.builder("sandbox.compile.cache").tag("result", "hit")
+                .description("编译缓存命中次数").register(meterRegistry);
+        missCounter = Counter.builder("sandbox.compile.cache").tag("result", "miss")
+                .description("编译缓存未命中次数").register(meterRegistry);
+        Gauge.builder("sandbox.compile.cache.bytes", totalBytes, AtomicLong::get)
+                .description("编译缓存占用磁盘 (Byte)").register(meterRegistry);
+        Gauge.builder("sandbox.compile.cache.entries", this, CompileCache::size)
+                .description("编译缓存条目数").register(meterRegistry);
+
+        cacheDir = new File(cacheDirPath);
+        cacheDir.mkdirs();
+        loadIndex();
+    }
+
+    /**
+     * 构造缓存 key
+     * 源码只做不影响语义的归一化：统一换行符、去掉末尾空白
+     */
+    public String buildKey(String language, String image, String code) {
+        String normalizedCode = code == null ? "" : code.replace("\r\n", "\n").stripTrailing();
+        return DigestUtil.sha256Hex(language + "\n" + image + "\n" + normalizedCode);
+    }
+
+    /**
+     * 命中时把编译产物复制到工作目录
+     *
+     * @return 是否命中
+     */
+    public boolean restore(String key, File workspace) {
+        if (!enabled) {
+            return false;
+        }
+        synchronized (index) {
+            if (index.get(key) == null) {
+                missCounter.increment();
+                return false;
+            }
+        }
+        File entryDir = new File(cacheDir, key);
+        File[] artifacts = entryDir.listFiles();
+        if (artifacts == null || artifacts.length == 0) {
+            // 索引在但文件被外部删了，当作未命中
+            remove(key);
+            missCounter.increment();
+            return false;
+        }
+        try {
+            for (File artifact : artifacts) {
+                // COPY_ATTRIBUTES 保留可执行权限 (C++ 的 main)
+                Files.copy(artifact.toPath(), new File(workspace, artifact.getName()).toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+            }
+        } catch (IOException e) {
+            log.warn("⚠️ 编译缓存恢复失败，回退到重新编译, key: {}", key, e);
+            remove(key);
+            missCounter.increment();
+            return false;
+        }
+        hitCounter.increment();
+        return true;
+    }
+
+    /**
+     * 编译成功后保存产物 (工作目录中除源码以外的全部文件)
+     */
+    public void store(String key, File workspace, String sourceFileName) {
+        if (!enabled) {
+            return;
+        }
+        File[] artifacts = workspace.listFiles(file -> file.isFile() && !file.getName().equals(sourceFileName));
+        if (artifacts == null || artifacts.length == 0) {
+            return;
+        }
+        // 先写临时目录再原子改名，避免并发提交同一份代码时读到写了一半的产物
+        File tempDir = new File(cacheDir, ".tmp-" + UUID.randomUUID());
+        File entryDir = new File(cacheDir, key);
+        long size = 0;
+        try {
+            tempDir.mkdirs();
+            for (File artifact : artifacts) {
+                Files.copy(artifact.toPath(), new File(tempDir, artifact.getName()).toPath(),
+                        StandardCopyOption.COPY_ATTRIBUTES);
+                size += artifact.length();
+            }
+            if (size > maxBytes) {
+                return;
+            }
+            Files.move(tempDir.toPath(), entryDir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // 目标已存在说明别的线程刚存过，直接丢弃
+            return;
+        } finally {
+            FileUtil.del(tempDir);
+        }
+
+        synchronized (index) {
+            Long old = index.put(key, size);
+            totalBytes.addAndGet(size - (old == null ? 0 : old));
+            evictIfNecessary();
+        }
+    }
+
+    public int size() {
+        synchronized (index) {
+            return index.size();
+        }
+    }
+
+    private void remove(String key) {
+        synchronized (index) {
+            Long size = index.remove(key);
+            if (size != null) {
+                totalBytes.addAndGet(-size);
+            }
+        }
+        FileUtil.del(new File(cacheDir, key));
+    }
+
+    /**
+     * 超出容量时从最久未使用的开始淘汰 (调用方持有 index 锁)
+     */
+    private void evictIfNecessary() {
+        Iterator<Map.Entry<String, Long>> iterator = index.entrySet().iterator();
+        while (totalBytes.get() > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            iterator.remove();
+            totalBytes.addAndGet(-eldest.getValue());
+            FileUtil.del(new File(cacheDir, eldest.getKey()));
+        }
+    }
+
+    /**
+     * 启动时扫描磁盘重建索引，按最后修改时间近似恢复 LRU 顺序
+     */
+    private void loadIndex() {
+        File[] entries = cacheDir.listFiles(File::isDirectory);
+        if (entries == null) {
+            return;
+        }
+        Arrays.sort(entries, Comparator.comparingLong(File::lastModified));
+        synchronized (index) {
+            for (File entry : entries) {
+                if (entry.getName().startsWith(".tmp-")) {
+                    FileUtil.del(entry);
+                    continue;
+                }
+                long size = FileUtil.size(entry);
+                index.put(entry.getName(), size);
+                totalBytes.addAndGet(size);
+            }
+            evictIfNecessary();
+        }
+        log.info("📦 编译缓存已加载, 条目数: {}, 占用: {} Byte", index.size(), totalBytes.get());
+    }
+}
@@ -1,32 +1,65 @@
 package com.nano.oj.judge.codesandbox.impl;
 
 import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.resource.ResourceUtil;
 import cn.hutool.core.util.StrUtil;
 import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
 import com.github.dockerjava.api.command.CreateContainerCmd;
 import com.github.dockerjava.api.command.CreateContainerResponse;
+import com.github.dockerjava.api.command.ExecCreateCmdResponse;
 import com.github.dockerjava.api.command.InspectContainerResponse;
-import com.github.dockerjava.api.command.WaitContainerResultCallback;
+import com.github.dockerjava.api.command.InspectExecResponse;
 import com.github.dockerjava.api.model.*;
 import com.github.dockerjava.core.command.LogContainerResultCallback;
+import com.nano.oj.judge.checker.CompareMode;
+import com.nano.oj.judge.checker.OutputComparator;
 import com.nano.oj.judge.codesandbox.CodeSandbox;
+import com.nano.oj.judge.codesandbox.cache.CompileCache;
+import com.nano.oj.judge.codesandbox.model.CaseResult;
 import com.nano.oj.judge.codesandbox.model.ExecuteCodeRequest;
 import com.nano.oj.judge.codesandbox.model.ExecuteCodeResponse;
+import com.nano.oj.judge.codesandbox.pool.CgroupMonitor;
+import com.nano.oj.judge.codesandbox.pool.ContainerPool;
+import com.nano.oj.judge.codesandbox.pool.CpuSlotScheduler;
+import com.nano.oj.judge.codesandbox.pool.PooledContainer;
+import com.nano.oj.judge.codesandbox.pool.SandboxReaper;
+import com.nano.oj.judge.metrics.JudgeMetrics;
+import com.nano.oj.judge.metrics.JudgePhaseTimings;
 import com.nano.oj.model.dto.questionsubmit.JudgeInfo;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.Resource;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * Docker 代码沙箱实现
  * 提供 Java, C++, Python 等语言的隔离运行环境
+ * 运行阶段复用 {@link ContainerPool} 中的常驻容器，每个用例只是一次 exec
  */
 @Component
 @Slf4j
@@ -35,23 +68,92 @@ public class DockerCodeSandbox implements CodeSandbox {
     @Resource
     private DockerClient dockerClient;
 
+    @Resource
+    private ContainerPool containerPool;
+
+    @Resource
+    private CompileCache compileCache;
+
+    @Resource
+    private SandboxReaper sandboxReaper;
+
+    @Resource
+    private CpuSlotScheduler cpuSlotScheduler;
+
+    @Resource
+    private CgroupMonitor cgroupMonitor;
+
+    @Resource
+    private JudgeMetrics judgeMetrics;
+
     // 默认超时时间 30s
     private static final long DEFAULT_TIME_OUT = 30000L;
 
-    // 输出日志最大长度限制 (防止恶意输出导致内存溢出)
+    // 保留用于展示的输出长度 (比对走流式比对器，不受此限制)
     private static final int MAX_OUTPUT_LENGTH = 10000;
 
+    // 内存峰值读取命令 (兼容 cgroup v1 / v2)，仅在宿主机 cgroup 不可用时使用
+    // 注意：容器复用时 memory.peak 为容器生命周期内的峰值，复用次数越多越偏大
+    private static final String MEMORY_CMD = "(cat /sys/fs/cgroup/memory/memory.max_usage_in_bytes 2>/dev/null || cat /sys/fs/cgroup/memory.peak 2>/dev/null)";
+
+    // 编译后收紧工作目录权限：其他用户只读，不能新建、改写文件
+    private static final String WORKSPACE_CHMOD = "chmod -R go-w,a+rX /app";
+
+    // 容器内判题 harness 脚本 (resources/sandbox/harness.sh)
+    private static final String HARNESS_SCRIPT = ResourceUtil.readUtf8Str("sandbox/harness.sh");
+
+    // 选手程序在容器内运行的 uid / gid (默认 nobody)：不能写工作目录，也不能向以 root 运行的 harness、计时命令发信号
+    @Value("${sandbox.run-uid:65534}")
+    private int runUid;
+
+    // 是否启用 harness 模式 (一次 exec 跑完全部用例)
+    @Value("${sandbox.harness.enabled:true}")
+    private boolean harnessEnabled;
+
+    // 用例数达到多少时才使用 harness 模式
+    @Value("${sandbox.harness.min-cases:2}")
+    private int harnessMinCases;
+
+    // 单个用例的输出上限 (Byte)，超出判为 Output Limit Exceeded
+    @Value("${sandbox.output.max-bytes:67108864}")
+    private long outputLimitBytes;
+
+    // 墙钟上限 = CPU 时间限制 * 该系数
+    @Value("${sandbox.time.wall-factor:2}")
+    private long wallTimeFactor;
+
+    // 宿主机 cgroup 统计的轮询间隔 (ms)，决定 CPU 超时后多快被杀
+    @Value("${sandbox.cgroup.poll-interval:20}")
+    private long cgroupPollInterval;
+
+    // 特判程序单次运行的墙钟上限 (ms)
+    @Value("${sandbox.checker.time-limit:10000}")
+    private long checkerTimeLimit;
+
+    // 是否允许一次提交占用多个 CPU 槽位并行运行用例
+    @Value("${sandbox.cpu.parallel-enabled:true}")
+    private boolean parallelEnabled;
+
+    // 并行运行用例的线程 (实际并发度受 CPU 槽位限制)
+    private final ExecutorService caseExecutor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "sandbox-case-runner");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     @Override
     public ExecuteCodeResponse executeCode(ExecuteCodeRequest executeCodeRequest) {
         // ================== 1. 基础配置与参数准备 ==================
         String language = executeCodeRequest.getLanguage();
         String code = executeCodeRequest.getCode();
-        List<String> inputList = executeCodeRequest.getInputList();
+        List<CaseData> caseList = CaseData.fromRequest(executeCodeRequest);
+        JudgePhaseTimings timings = executeCodeRequest.getPhaseTimings() != null
+                ? executeCodeRequest.getPhaseTimings() : new JudgePhaseTimings();
 
-        // 设置时间限制 (给予 1秒 的 Buffer 防止刚到时间就被 kill 导致没有日志)
+        // 设置时间限制：timeLimit 为 CPU 时间，超出即杀；墙钟上限只用来兜底 sleep、阻塞读等不占 CPU 的情况
         Long requestTimeLimit = executeCodeRequest.getTimeLimit();
         long runTimeLimit = (requestTimeLimit == null) ? DEFAULT_TIME_OUT : requestTimeLimit;
-        long maxAllowedTime = runTimeLimit + 1000L;
+        long maxAllowedTime = runTimeLimit * wallTimeFactor;
 
         // 设置内存限制
         Long requestMemoryLimit = executeCodeRequest.getMemoryLimit();
@@ -67,278 +169,820 @@ public class DockerCodeSandbox implements CodeSandbox {
             }
         }
 
-        // 准备临时文件目录 (tempCode/UUID)
-        String userDir = System.getProperty("user.dir");
-        String globalCodePathName = userDir + File.separator + "tempCode";
-        String parentPathName = globalCodePathName + File.separator + UUID.randomUUID();
-        File parentPath = new File(parentPathName);
-
-        // ================== 2. 核心处理流程 (Try-Finally 保证清理) ==================
+        // ================== 2. 核心处理流程 (Try-Finally 保证归还容器) ==================
+        PooledContainer container = null;
+        boolean containerHealthy = true;
+        Checker checker = null;
         try {
-            // 2.1 创建代码隔离目录
-            if (!parentPath.exists()) {
-                parentPath.mkdirs();
-            }
-
             String image = "";
             String fileName = "";
             String compileCmd = null;
-            String runCmd = "";
+            String programCmd = "";
 
             // 自动清洗 Java 代码：防止 package 声明导致运行错误
             if ("java".equals(language) && StrUtil.isNotBlank(code)) {
                 code = code.replaceAll("package\\s+[a-zA-Z0-9_\\.]+;", "");
             }
 
-            // 内存监控命令 (兼容不同 Linux 发行版路径)
-            String memoryCmd = "cat /sys/fs/cgroup/memory/memory.max_usage_in_bytes > /app/memory.txt 2>/dev/null || cat /sys/fs/cgroup/memory.peak > /app/memory.txt 2>/dev/null";
-
-            // 2.2 根据语言配置镜像和命令
+            // 2.1 根据语言配置镜像和命令
             switch (language) {
                 case "java":
                     image = "eclipse-temurin:17-jdk";
                     fileName = "Main.java";
-                    // 编译并修改权限为 777，确保宿主机可以删除 root 创建的 class 文件
-                    compileCmd = "javac -encoding utf-8 /app/Main.java && chmod -R 777 /app";
-                    runCmd = "java -Dfile.encoding=UTF-8 -cp /app Main < %s; ret=$?; " + memoryCmd + "; exit $ret";
+                    // 编译产物对选手 uid 只读可执行，工作目录不可写 (宿主机是目录属主，仍可删除 root 创建的 class 文件)
+                    compileCmd = "javac -encoding utf-8 /app/Main.java && " + WORKSPACE_CHMOD;
+                    programCmd = "java -Dfile.encoding=UTF-8 -cp /app Main";
                     break;
                 case "cpp":
                     image = "gcc:latest";
                     fileName = "main.cpp";
                     // 编译并修改权限
-                    compileCmd = "g++ -o /app/main /app/main.cpp && chmod -R 777 /app";
-                    runCmd = "/app/main < %s; ret=$?; " + memoryCmd + "; exit $ret";
+                    compileCmd = "g++ -o /app/main /app/main.cpp && " + WORKSPACE_CHMOD;
+                    programCmd = "/app/main";
                     break;
                 case "python":
                     image = "python:3.9";
                     fileName = "main.py";
                     compileCmd = null; // Python 不需要编译
-                    runCmd = "PYTHONIOENCODING=utf-8 python3 /app/main.py < %s; ret=$?; " + memoryCmd + "; exit $ret";
+                    programCmd = "PYTHONIOENCODING=utf-8 python3 /app/main.py";
                     break;
                 default:
                     throw new RuntimeException("不支持的编程语言: " + language);
             }
 
+            // 2.2 从容器池借出容器，其工作目录已挂载到 /app
+            long phaseStart = System.nanoTime();
+            container = containerPool.checkout(image);
+            timings.add(JudgePhaseTimings.CONTAINER_ACQUIRE, phaseStart);
+            File parentPath = container.getWorkspace();
+            String parentPathName = parentPath.getAbsolutePath();
+
             // 2.3 将用户代码写入文件
             File userCodeFile = new File(parentPath, fileName);
             FileUtil.writeString(code, userCodeFile, StandardCharsets.UTF_8);
 
             // 2.4 编译代码 (如果需要)
+            // 先查编译缓存，命中则直接把产物复制进工作目录，跳过编译
+            // 编译仍使用一次性容器：javac/g++ 的内存峰值不能算进常驻容器的 memory.peak
             if (compileCmd != null) {
-                try {
-                    String compileMessage = compileFile(image, parentPathName, compileCmd);
-                    if (compileMessage != null) {
-                        // 🔴 编译失败：直接返回错误
-                        // ✅ 注意：这里 return 前会自动执行 finally 里的 cleanup，解决 CE 不删文件的问题
-                        return getErrorResponse("Compile Error", compileMessage);
+                phaseStart = System.nanoTime();
+                String compileCacheKey = compileCache.buildKey(language, image, code);
+                if (!compileCache.restore(compileCacheKey, parentPath)) {
+                    try {
+                        String compileMessage = compileFile(image, parentPathName, compileCmd);
+                        if (compileMessage != null) {
+                            // 🔴 编译失败：直接返回错误 (finally 中归还容器)
+                            timings.add(JudgePhaseTimings.COMPILE, phaseStart);
+                            return getErrorResponse("Compile Error", compileMessage);
+                        }
+                    } catch (Exception e) {
+                        judgeMetrics.sandboxFailure(language, "compile");
+                        return getErrorResponse("System Error", "系统编译异常: " + e.getMessage());
                     }
-                } catch (Exception e) {
-                    return getErrorResponse("System Error", "系统编译异常: " + e.getMessage());
+                    compileCache.store(compileCacheKey, parentPath, fileName);
                 }
+                timings.add(JudgePhaseTimings.COMPILE, phaseStart);
             }
 
-            // 2.5 执行代码 (遍历所有测试用例)
-            List<String> outputList = new ArrayList<>();
-            long maxTime = 0;
-            long maxMemory = 0;
-
-            for (int i = 0; i < inputList.size(); i++) {
-                String input = inputList.get(i);
-                String inputFileName = "input_" + i + ".txt";
-                File inputFile = new File(parentPath, inputFileName);
-                FileUtil.writeString(input, inputFile, StandardCharsets.UTF_8);
-
-                String containerInputPath = "/app/" + inputFileName;
-                String finalRunCmd = String.format(runCmd, containerInputPath);
-
-                // 创建容器
-                CreateContainerCmd containerCmd = dockerClient.createContainerCmd(image)
-                        .withNetworkDisabled(true) // 禁用网络，防止恶意代码
-                        .withHostConfig(new HostConfig()
-                                .withBinds(new Bind(parentPathName, new Volume("/app"))) // 挂载代码目录
-                                .withMemory(containerMemoryLimit)
-                                .withMemorySwap(containerMemoryLimit) // 限制 swap 防止 OOM 逃逸
-                                .withCpuCount(1L)
-                                .withReadonlyRootfs(true) // 只读根文件系统，防止修改环境
-                                // 挂载可写临时目录，部分语言运行时需要
-                                .withTmpFs(Collections.singletonMap("/tmp", "rw,exec,nosuid,size=64m"))
-                        )
-                        .withEnv("LANG=C.UTF-8", "LC_ALL=C.UTF-8") // 防止中文乱码
-                        .withAttachStdin(true)
-                        .withAttachStdout(true)
-                        .withAttachStderr(true)
-                        .withTty(false) // 关闭 TTY，方便获取纯净输出
-                        .withCmd("/bin/sh", "-c", finalRunCmd);
-
-                CreateContainerResponse containerResponse = containerCmd.exec();
-                String containerId = containerResponse.getId();
-
-                // 启动容器
-                dockerClient.startContainerCmd(containerId).exec();
-
-                // 获取日志 (代码输出)
-                StringBuilder resultLog = new StringBuilder();
-                LogContainerResultCallback logCallback = new LogContainerResultCallback() {
-                    @Override
-                    public void onNext(Frame item) {
-                        if (resultLog.length() > MAX_OUTPUT_LENGTH) return;
-                        resultLog.append(new String(item.getPayload(), StandardCharsets.UTF_8));
-                        if (resultLog.length() > MAX_OUTPUT_LENGTH) {
-                            resultLog.setLength(MAX_OUTPUT_LENGTH);
-                            resultLog.append("...[Output too long]");
-                        }
-                    }
-                };
-                dockerClient.logContainerCmd(containerId)
-                        .withStdOut(true)
-                        .withStdErr(true)
-                        .withFollowStream(true)
-                        .exec(logCallback);
-
-                // 等待容器结束或超时
-                WaitContainerResultCallback waitCallback = new WaitContainerResultCallback();
-                dockerClient.waitContainerCmd(containerId).exec(waitCallback);
-
-                boolean isTimeout = false;
+            // 2.5 准备特判程序：编译产物按源码哈希缓存，复制进工作目录
+            if (executeCodeRequest.getCheckerFile() != null) {
+                phaseStart = System.nanoTime();
                 try {
-                    boolean completed = waitCallback.awaitCompletion(maxAllowedTime, TimeUnit.MILLISECONDS);
-                    if (!completed) {
-                        isTimeout = true;
-                        dockerClient.killContainerCmd(containerId).exec();
-                    }
-                } catch (InterruptedException e) {
-                    isTimeout = true;
-                    dockerClient.killContainerCmd(containerId).exec();
-                }
-
-                logCallback.close();
-
-                // 获取容器运行状态 (退出码、内存、时间)
-                InspectContainerResponse inspectResponse = dockerClient.inspectContainerCmd(containerId).exec();
-                Long exitCode = inspectResponse.getState().getExitCodeLong();
-                // 137 通常代表 OOM (Out Of Memory)
-                boolean oomKilled = Boolean.TRUE.equals(inspectResponse.getState().getOOMKilled()) || (exitCode == 137);
-
-                // 计算时间消耗
-                long timeCost = 0;
-                if (isTimeout) {
-                    timeCost = runTimeLimit + 1; // 标记超时
-                } else {
-                    String startedAt = inspectResponse.getState().getStartedAt();
-                    String finishedAt = inspectResponse.getState().getFinishedAt();
-                    if (StrUtil.isNotBlank(startedAt) && StrUtil.isNotBlank(finishedAt)) {
-                        Instant start = Instant.parse(startedAt);
-                        Instant end = Instant.parse(finishedAt);
-                        timeCost = ChronoUnit.MILLIS.between(start, end);
-                    }
-                }
-
-                // 计算内存消耗
-                long memoryBytes = 0;
-                if (oomKilled) {
-                    memoryBytes = containerMemoryLimit;
-                } else {
-                    // 从挂载的 memory.txt 读取内存峰值
-                    File memoryFile = new File(parentPath, "memory.txt");
-                    if (memoryFile.exists()) {
-                        String memoryStr = FileUtil.readString(memoryFile, StandardCharsets.UTF_8).trim();
-                        try {
-                            memoryBytes = Long.parseLong(memoryStr);
-                        } catch (Exception e) {}
-                    }
+                    checker = prepareChecker(executeCodeRequest.getCheckerLanguage(), executeCodeRequest.getCheckerFile(), container);
+                } catch (Exception e) {
+                    judgeMetrics.sandboxFailure(language, "checker_compile");
+                    return getErrorResponse("System Error", "特判程序编译失败: " + e.getMessage());
+                } finally {
+                    timings.add(JudgePhaseTimings.COMPILE, phaseStart);
                 }
+            }
 
-                // Java OOM 特殊判定 (有时 Docker 没 kill，但 JVM 抛出了 Error)
-                String logStr = resultLog.toString();
-                if (!oomKilled && logStr.contains("java.lang.OutOfMemoryError")) {
-                    oomKilled = true;
-                    memoryBytes = containerMemoryLimit;
-                }
+            // 2.6 执行代码：申请 CPU 核心槽位，用例多时分给多个绑核容器并行运行
+            // 提供了预期输出时在沙箱内逐用例比对；fail-fast：遇到第一个答案错误 / 超时 / 超内存即停止
+            boolean check = !caseList.isEmpty() && caseList.getFirst().hasExpected();
+            boolean failFast = Boolean.TRUE.equals(executeCodeRequest.getFailFast()) && check;
+            RunLimit runLimit = new RunLimit(runTimeLimit, maxAllowedTime,
+                    requestMemoryLimit == null ? containerMemoryLimit : requestMemoryLimit, containerMemoryLimit);
+            List<CaseResult> caseResults = runAllCases(container, programCmd, caseList, check, failFast, runLimit, checker, timings);
 
+            // 2.7 汇总结果
+            List<String> outputList = new ArrayList<>();
+            List<Boolean> passList = check ? new ArrayList<>() : null;
+            long maxTime = 0;
+            long maxWallTime = 0;
+            long maxMemory = 0;
+            for (CaseResult caseResult : caseResults) {
+                long timeCost = caseResult.isTimeout() ? runTimeLimit + 1 : caseResult.getTime(); // 超时标记
+                long memoryBytes = caseResult.isOomKilled() ? containerMemoryLimit : caseResult.getMemory();
                 maxTime = Math.max(maxTime, timeCost);
+                maxWallTime = Math.max(maxWallTime, caseResult.getWallTime());
                 maxMemory = Math.max(maxMemory, memoryBytes);
-                outputList.add(logStr.trim());
-
-                // 清理容器
-                dockerClient.removeContainerCmd(containerId).withForce(true).exec();
+                outputList.add(caseResult.getOutput().trim());
+                if (passList != null) {
+                    passList.add(!caseResult.isWrongAnswer());
+                }
 
-                // 🔴 运行时错误处理 (Runtime Error)
-                if (!isTimeout && !oomKilled && exitCode != 0) {
+                // 🔴 运行时错误 / 输出超限处理 (Runtime Error / Output Limit Exceeded)
+                if (caseResult.isRuntimeError() || caseResult.isOutputLimitExceeded()) {
                     ExecuteCodeResponse response = new ExecuteCodeResponse();
                     response.setOutputList(new ArrayList<>());
-                    response.setMessage("Runtime Error");
+                    response.setMessage(caseResult.isOutputLimitExceeded() ? "Output Limit Exceeded" : "Runtime Error");
                     response.setStatus(2); // 2: 失败
                     JudgeInfo judgeInfo = new JudgeInfo();
                     judgeInfo.setTime(maxTime);
+                    judgeInfo.setWallTime(maxWallTime);
                     judgeInfo.setMemory(maxMemory / 1024);
-                    judgeInfo.setDetail(logStr);
+                    judgeInfo.setDetail(caseResult.getOutput());
                     response.setJudgeInfo(judgeInfo);
-                    // ✅ 同样会触发 finally 清理
                     return response;
                 }
-            } // end for loop
+            }
 
-            // 2.6 构建成功响应
+            // 2.8 构建成功响应
             ExecuteCodeResponse response = new ExecuteCodeResponse();
             response.setOutputList(outputList);
+            response.setPassList(passList);
             response.setMessage("执行成功");
             response.setStatus(1); // 1: 成功
             JudgeInfo judgeInfo = new JudgeInfo();
             judgeInfo.setTime(maxTime);
+            judgeInfo.setWallTime(maxWallTime);
             judgeInfo.setMemory(maxMemory / 1024);
             response.setJudgeInfo(judgeInfo);
             return response;
 
         } catch (Exception e) {
+            containerHealthy = false;
+            judgeMetrics.sandboxFailure(language, "run");
             log.error("判题运行异常", e);
             throw new RuntimeException("判题运行异常: " + e.getMessage());
         } finally {
-            // ================== 3. 资源清理 (兜底逻辑) ==================
-            if (parentPath == null) {
-                log.warn("⚠️ parentPath 为 null，跳过清理");
+            // ================== 3. 归还容器 (清理进程与工作目录，或回收销毁) ==================
+            if (container != null) {
+                long cleanupStart = System.nanoTime();
+                containerPool.release(container, containerHealthy);
+                timings.add(JudgePhaseTimings.CLEANUP, cleanupStart);
+            }
+            if (checker != null && checker.sharedContainer() != null) {
+                containerPool.release(checker.sharedContainer(), true);
+            }
+        }
+    }
+
+    /**
+     * 运行限制
+     *
+     * @param timeLimit            题目时间限制 (ms，CPU 时间)
+     * @param maxAllowedTime       单用例墙钟上限 (ms)，超过即强杀
+     * @param memoryLimit          题目内存限制 (Byte)
+     * @param containerMemoryLimit 容器内存上限 (Byte)，含语言运行时开销
+     */
+    private record RunLimit(long timeLimit, long maxAllowedTime, long memoryLimit, long containerMemoryLimit) {
+    }
+
+    /**
+     * 申请 CPU 槽位并运行全部用例
+     * 只拿到一个核心时直接在主容器内顺序运行；拿到多个核心时，按用例序号轮流分给多个容器
+     * (主容器 + 从池中额外借出的容器)，每个容器绑定一个核心并行运行，最后按序号合并结果。
+     *
+     * @param check    是否逐用例比对预期输出
+     * @param failFast 是否在第一个失败用例处停止
+     * @param checker  特判程序，为 null 时按比对模式比对
+     */
+    private List<CaseResult> runAllCases(PooledContainer container, String programCmd, List<CaseData> caseList,
+                                         boolean check, boolean failFast, RunLimit runLimit, Checker checker,
+                                         JudgePhaseTimings timings) throws Exception {
+        int caseCount = caseList.size();
+        long phaseStart = System.nanoTime();
+        List<Integer> cores = cpuSlotScheduler.acquire(parallelEnabled ? caseCount : 1);
+        timings.add(JudgePhaseTimings.CPU_SLOT_WAIT, phaseStart);
+        List<PooledContainer> extraContainers = new ArrayList<>();
+        boolean extraHealthy = true;
+        try {
+            phaseStart = System.nanoTime();
+            containerPool.updateMemory(container, runLimit.containerMemoryLimit());
+            containerPool.pinCpu(container, cores.get(0));
+            if (cores.size() == 1) {
+                timings.add(JudgePhaseTimings.CONTAINER_PREPARE, phaseStart);
+                phaseStart = System.nanoTime();
+                List<CaseResult> caseResults = runCases(container, programCmd, caseList, check, failFast, runLimit, checker);
+                timings.add(JudgePhaseTimings.RUN, phaseStart);
+                return caseResults;
+            }
+
+            // 额外的容器复制主容器中的源码和编译产物
+            for (int w = 1; w < cores.size(); w++) {
+                PooledContainer extra = containerPool.checkout(container.getImage());
+                extraContainers.add(extra);
+                copyWorkspace(container.getWorkspace(), extra.getWorkspace());
+                containerPool.updateMemory(extra, runLimit.containerMemoryLimit());
+                containerPool.pinCpu(extra, cores.get(w));
+            }
+
+            timings.add(JudgePhaseTimings.CONTAINER_PREPARE, phaseStart);
+
+            // 用例 i 分给第 i % n 个容器
+            phaseStart = System.nanoTime();
+            int workerCount = cores.size();
+            List<Future<List<CaseResult>>> futures = new ArrayList<>(workerCount);
+            for (int w = 0; w < workerCount; w++) {
+                PooledContainer worker = w == 0 ? container : extraContainers.get(w - 1);
+                List<CaseData> workerCases = new ArrayList<>();
+                for (int i = w; i < caseCount; i += workerCount) {
+                    workerCases.add(caseList.get(i));
+                }
+                futures.add(caseExecutor.submit(() -> runCases(worker, programCmd, workerCases, check, failFast, runLimit, checker)));
+            }
+
+            CaseResult[] merged = new CaseResult[caseCount];
+            for (int w = 0; w < workerCount; w++) {
+                List<CaseResult> workerResults;
+                try {
+                    workerResults = futures.get(w).get();
+                } catch (ExecutionException e) {
+                    extraHealthy = false;
+                    throw new RuntimeException("并行运行用例失败", e.getCause());
+                }
+                for (int j = 0; j < workerResults.size(); j++) {
+                    merged[w + j * workerCount] = workerResults.get(j);
+                }
+            }
+
+            // 按序号合并，截断到第一个停止点 (与顺序运行的结果保持一致)
+            List<CaseResult> caseResults = new ArrayList<>();
+            for (CaseResult caseResult : merged) {
+                if (caseResult == null) {
+                    break;
+                }
+                caseResults.add(caseResult);
+                if (isAlwaysStop(caseResult) || (failFast && isFailFastStop(caseResult, runLimit))) {
+                    break;
+                }
+            }
+            timings.add(JudgePhaseTimings.RUN, phaseStart);
+            return caseResults;
+        } finally {
+            cpuSlotScheduler.release(cores);
+            for (PooledContainer extra : extraContainers) {
+                containerPool.release(extra, extraHealthy);
+            }
+        }
+    }
+
+    /**
+     * 在单个容器内顺序运行一组用例：用例较多时用容器内 harness 一次跑完，否则逐用例 exec
+     */
+    private List<CaseResult> runCases(PooledContainer container, String programCmd, List<CaseData> caseList,
+                                      boolean check, boolean failFast,
+                                      RunLimit runLimit, Checker checker) throws InterruptedException, IOException {
+        File parentPath = container.getWorkspace();
+        // harness 在容器内用 shell 比对，只支持 TOKEN 模式；其他比对模式和特判逐用例 exec，由 Java 流式比对或调用特判程序
+        boolean harnessCheckable = !check || (checker == null && caseList.getFirst().compareMode() == CompareMode.TOKEN);
+        if (harnessEnabled && caseList.size() >= harnessMinCases && harnessCheckable) {
+            // harness 在一次 exec 内跑完全部用例，输入仍以文件形式放进工作目录 (tmpfs)
+            // 输入文件只有 root 可读，由 harness 打开后重定向给选手程序，选手读不到其他用例的数据
+            for (int i = 0; i < caseList.size(); i++) {
+                File inputFile = new File(parentPath, "input_" + i + ".txt");
+                caseList.get(i).writeInput(inputFile);
+                makeOwnerOnly(inputFile);
+            }
+            int checkMode = 0;
+            if (check) {
+                checkMode = failFast ? 2 : 1;
+                for (int i = 0; i < caseList.size(); i++) {
+                    File answerFile = new File(parentPath, "answer_" + i + ".txt");
+                    caseList.get(i).writeExpected(answerFile);
+                    makeOwnerOnly(answerFile);
+                }
+            }
+            return runWithHarness(container, programCmd, caseList.size(), runLimit, checkMode);
+        }
+        return runWithExec(container, programCmd, caseList, runLimit, check, failFast, checker);
+    }
+
+    /**
+     * 单个用例的数据：字符串 (自测运行等) 或测试数据存储中的文件，二者取其一；比对模式来自题目的判题配置
+     */
+    private record CaseData(String input, File inputFile, String expected, File expectedFile,
+                            CompareMode compareMode, double epsilon) {
+
+        static List<CaseData> fromRequest(ExecuteCodeRequest request) {
+            List<CaseData> caseList = new ArrayList<>();
+            CompareMode compareMode = request.getCompareMode() == null ? CompareMode.TOKEN : request.getCompareMode();
+            double epsilon = request.getEpsilon() == null ? CompareMode.DEFAULT_EPSILON : request.getEpsilon();
+            List<File> inputFiles = request.getInputFileList();
+            if (inputFiles != null) {
+                List<File> expectedFiles = request.getExpectedOutputFileList();
+                boolean withExpected = expectedFiles != null && expectedFiles.size() == inputFiles.size();
+                for (int i = 0; i < inputFiles.size(); i++) {
+                    caseList.add(new CaseData(null, inputFiles.get(i), null, withExpected ? expectedFiles.get(i) : null,
+                            compareMode, epsilon));
+                }
+                return caseList;
+            }
+            List<String> inputs = request.getInputList() == null ? List.of() : request.getInputList();
+            List<String> expectedOutputs = request.getExpectedOutputList();
+            boolean withExpected = expectedOutputs != null && expectedOutputs.size() == inputs.size();
+            for (int i = 0; i < inputs.size(); i++) {
+                caseList.add(new CaseData(inputs.get(i), null, withExpected ? expectedOutputs.get(i) : null, null,
+                        compareMode, epsilon));
+            }
+            return caseList;
+        }
+
+        boolean hasExpected() {
+            return expected != null || expectedFile != null;
+        }
+
+        long inputSize() {
+            return inputFile != null ? inputFile.length() : input.getBytes(StandardCharsets.UTF_8).length;
+        }
+
+        /**
+         * 以流的形式读取输入 (attach 到 exec 的 stdin)
+         */
+        InputStream openInput() throws IOException {
+            if (inputFile != null) {
+                return new BufferedInputStream(Files.newInputStream(inputFile.toPath()));
+            }
+            return new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * 写入输入文件：测试数据文件直接由内核复制，不经过堆
+         */
+        void writeInput(File target) throws IOException {
+            write(input, inputFile, target);
+        }
+
+        void writeExpected(File target) throws IOException {
+            write(expected, expectedFile, target);
+        }
+
+        /**
+         * 预期输出的流式比对器：测试数据文件内存映射后直接比对
+         */
+        OutputComparator comparator() {
+            if (expectedFile == null) {
+                return compareMode.newComparator(ByteBuffer.wrap(expected.getBytes(StandardCharsets.UTF_8)), epsilon);
+            }
+            try (FileChannel channel = FileChannel.open(expectedFile.toPath(), StandardOpenOption.READ)) {
+                return compareMode.newComparator(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), epsilon);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static void write(String content, File source, File target) throws IOException {
+            if (source != null) {
+                Files.copy(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
             } else {
-                String pathStr = parentPath.getAbsolutePath();
-                log.info("🧹 开始清理临时目录: {}", pathStr);
+                FileUtil.writeString(content, target, StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    /**
+     * 无论哪种模式都要停止的用例 (运行错误、输出超限)
+     */
+    private boolean isAlwaysStop(CaseResult caseResult) {
+        return caseResult.isRuntimeError() || caseResult.isOutputLimitExceeded();
+    }
+
+    /**
+     * fail-fast 模式下该用例是否应当停止后续运行 (答案错误、超时、超内存)
+     */
+    private boolean isFailFastStop(CaseResult caseResult, RunLimit runLimit) {
+        return caseResult.isWrongAnswer() || caseResult.isTimeout() || caseResult.isOomKilled()
+                || caseResult.getTime() > runLimit.timeLimit()
+                || caseResult.getMemory() > runLimit.memoryLimit();
+    }
+
+    /**
+     * 逐用例模式：每个用例一次 exec，遇到运行错误立即停止
+     *
+     * @param check    是否对输出流式比对，第一个不一致的字节出现即杀掉程序
+     * @param failFast 是否在第一个失败用例处停止
+     * @param checker  特判程序：不为 null 时不做流式比对，程序正常结束后在同一个容器内调用特判程序判定
+     */
+    private List<CaseResult> runWithExec(PooledContainer container, String programCmd, List<CaseData> caseList,
+                                         RunLimit runLimit, boolean check,
+                                         boolean failFast, Checker checker) throws InterruptedException {
+        int caseCount = caseList.size();
+        long maxAllowedTime = runLimit.maxAllowedTime();
+        // 计时命令：容器是常驻的，不能再用 StartedAt/FinishedAt，改为容器内自行计时
+        String timeStartCmd = "s=$(date +%s%N)";
+        String timeEndCmd = "echo $(( ($(date +%s%N) - s) / 1000000 )) > /app/time.txt";
+
+        List<CaseResult> caseResults = new ArrayList<>();
+        for (int i = 0; i < caseCount; i++) {
+            // 输入通过 attach 的 stdin 直接流进容器，不落盘
+            // docker-java 发送完 stdin 后不会半关闭连接，用 head -c 截取恰好的字节数，让程序读到 EOF
+            CaseData caseData = caseList.get(i);
+            // 计时和读内存的命令以 root 运行，只有选手程序降权运行
+            String runCmd = timeStartCmd + "; head -c " + caseData.inputSize() + " | " + asRunUser(programCmd) + "; ret=$?; "
+                    + timeEndCmd + "; " + MEMORY_CMD + " > /app/memory.txt; exit $ret";
+
+            // 优先用宿主机 cgroup 统计 CPU 时间和内存峰值，并按 CPU 时间提前强杀
+            // 特判时标准输出同时写入工作目录，交给特判程序读取
+            File parentPath = container.getWorkspace();
+            boolean special = check && checker != null;
+            File stdoutFile = special ? new File(parentPath, "user_output.txt") : null;
+            OutputCollector collector = new OutputCollector(check && !special ? caseData.comparator() : null,
+                    outputLimitBytes, stdoutFile);
+            ExecResult execResult;
+            long cpuTime;
+            long wallTime;
+            long memory;
+            CgroupMonitor.Session session = cgroupMonitor.open(container);
+            try (InputStream stdin = caseData.openInput()) {
+                execResult = execInContainer(container, runCmd, maxAllowedTime, stdin, collector, session, runLimit.timeLimit());
+                wallTime = readLongFromFile(new File(parentPath, "time.txt"));
+                cpuTime = session != null ? session.cpuMillis() : wallTime;
+                memory = session != null && session.isPeakReset()
+                        ? session.peakBytes() : readLongFromFile(new File(parentPath, "memory.txt"));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                if (session != null) {
+                    session.close();
+                }
+            }
+
+            boolean isTimeout = execResult.timeout();
+            boolean outputLimitExceeded = !isTimeout && collector.isOutputLimitExceeded();
+            Long exitCode = execResult.exitCode();
+            // 137 (SIGKILL) 且不是我们主动强杀的 (超时、输出超限、答案错误)，通常代表 OOM (Out Of Memory)
+            boolean oomKilled = !isTimeout && !collector.isStopped() && exitCode != null && exitCode == 137;
+
+            // Java OOM 特殊判定 (有时 Docker 没 kill，但 JVM 抛出了 Error)
+            String logStr = collector.getDisplayOutput();
+            if (!oomKilled && logStr.contains("java.lang.OutOfMemoryError")) {
+                oomKilled = true;
+            }
+            boolean wrongAnswer;
+            if (special) {
+                // 正常结束的用例交给特判程序判定 (程序已退出，特判的耗时和内存不计入选手)
+                wrongAnswer = !isTimeout && !oomKilled && !outputLimitExceeded && exitCode != null && exitCode == 0
+                        && !runChecker(checker, container, caseData, stdoutFile);
+            } else {
+                // 中途比对失败被杀，或正常结束后输出不完整，均为答案错误
+                wrongAnswer = check && !isTimeout && !oomKilled && !outputLimitExceeded
+                        && (collector.isMismatch() || (exitCode != null && exitCode == 0 && !collector.isMatched()));
+            }
+
+            CaseResult caseResult = CaseResult.builder()
+                    .output(logStr)
+                    .exitCode(exitCode)
+                    .time(cpuTime)
+                    .wallTime(wallTime)
+                    .memory(memory)
+                    .timeout(isTimeout)
+                    .oomKilled(oomKilled)
+                    .outputLimitExceeded(outputLimitExceeded)
+                    .wrongAnswer(wrongAnswer)
+                    .build();
+            caseResults.add(caseResult);
+            if (isAlwaysStop(caseResult) || (failFast && isFailFastStop(caseResult, runLimit))) {
+                break;
+            }
+        }
+        return caseResults;
+    }
+
+    /**
+     * Harness 模式：一次 exec 在容器内跑完全部用例，结果由 harness 写到自己的标准输出
+     * 省去每个用例的 exec 创建、输出流建立和 inspect 往返
+     * harness 以 root 运行，选手程序降权运行，拿不到 harness 的标准输出，也无法杀掉 harness 后伪造结果
+     */
+    private List<CaseResult> runWithHarness(PooledContainer container, String programCmd, int caseCount,
+                                            RunLimit runLimit, int checkMode) throws InterruptedException {
+        File parentPath = container.getWorkspace();
+        FileUtil.writeString(HARNESS_SCRIPT, new File(parentPath, "harness.sh"), StandardCharsets.UTF_8);
+
+        long maxAllowedTime = runLimit.maxAllowedTime();
+        String harnessCmd = String.format("sh /app/harness.sh %d %d %d %d %d %d %d '%s'",
+                caseCount, runLimit.containerMemoryLimit(), maxAllowedTime, checkMode,
+                runLimit.timeLimit(), outputLimitBytes, runUid, programCmd);
+        // 整体等待时间：每个用例的墙钟上限 + 进程启动余量
+        long harnessTimeout = caseCount * (maxAllowedTime + 500L) + 5000L;
+        // CPU 时间由 harness 在容器内按用例统计和强杀，宿主机只统计整次运行的内存峰值，用来校正池化容器偏大的读数
+        long runPeakMemory = -1;
+        List<String> lines = new ArrayList<>();
+        HarnessCollector collector = new HarnessCollector(lines::add, caseCount);
+        CgroupMonitor.Session session = cgroupMonitor.open(container);
+        try {
+            ExecResult execResult = execInContainer(container, harnessCmd, harnessTimeout, null, collector, null, 0);
+            // harness 被杀、超时或结果输出异常时，结果不可信，整次运行按系统错误处理
+            if (execResult.timeout() || execResult.exitCode() == null || execResult.exitCode() != 0
+                    || collector.isOverflow()) {
+                throw new IllegalStateException("harness 异常结束 (exitCode=" + execResult.exitCode()
+                        + ", timeout=" + execResult.timeout() + ")");
+            }
+            if (session != null && session.isPeakReset()) {
+                runPeakMemory = session.peakBytes();
+            }
+        } finally {
+            if (session != null) {
+                session.close();
+            }
+        }
 
-                // 3.1 延时释放锁：Windows 下 Docker 释放文件句柄可能有延迟
+        List<CaseResult> caseResults = new ArrayList<>();
+        String lastStatus = null;
+        for (String line : lines) {
+            HarnessLine result = HarnessLine.parse(line);
+            // 序号必须从 0 开始连续递增，且上一个用例没有让 harness 停止
+            if (result.index() != caseResults.size() || result.index() >= caseCount
+                    || (lastStatus != null && isHarnessStop(lastStatus, checkMode))) {
+                throw new IllegalStateException("harness 结果序号异常: " + line);
+            }
+            lastStatus = result.status();
+            String output = readOutputFile(new File(parentPath, "output_" + result.index() + ".txt"));
+            boolean oomKilled = "MLE".equals(lastStatus) || output.contains("java.lang.OutOfMemoryError");
+            caseResults.add(CaseResult.builder()
+                    .output(output)
+                    .exitCode(result.exitCode())
+                    .time(result.cpuTime())
+                    .wallTime(result.wallTime())
+                    .memory(runPeakMemory >= 0 ? Math.min(result.memory(), runPeakMemory) : result.memory())
+                    .timeout("TLE".equals(lastStatus))
+                    .oomKilled(oomKilled)
+                    .outputLimitExceeded("OLE".equals(lastStatus))
+                    .wrongAnswer("WA".equals(lastStatus))
+                    .build());
+        }
+        // 缺少的用例只能是因为 harness 按规则提前停止，否则视为结果不完整
+        if (caseResults.size() < caseCount && (lastStatus == null || !isHarnessStop(lastStatus, checkMode))) {
+            throw new IllegalStateException("harness 结果不完整: " + caseResults.size() + "/" + caseCount);
+        }
+        return caseResults;
+    }
+
+    /**
+     * harness 在该状态的用例之后是否停止运行 (与 harness.sh 的停止规则一致)
+     */
+    private static boolean isHarnessStop(String status, int checkMode) {
+        return "RE".equals(status) || "OLE".equals(status) || (checkMode == 2 && !"OK".equals(status));
+    }
+
+    /**
+     * harness 输出的一行用例结果: "<用例序号> <状态> <退出码> <CPU时间ms> <墙钟时间ms> <内存峰值Byte>"
+     */
+    private record HarnessLine(int index, String status, long exitCode, long cpuTime, long wallTime, long memory) {
+
+        private static final Set<String> STATUSES = Set.of("OK", "RE", "TLE", "MLE", "OLE", "WA");
+
+        static HarnessLine parse(String line) {
+            String[] parts = line.trim().split(" ");
+            if (parts.length != 6 || !STATUSES.contains(parts[1])) {
+                throw new IllegalStateException("harness 结果格式错误: " + line);
+            }
+            try {
+                return new HarnessLine(Integer.parseInt(parts[0]), parts[1], Long.parseLong(parts[2]),
+                        Long.parseLong(parts[3]), Long.parseLong(parts[4]), Long.parseLong(parts[5]));
+            } catch (NumberFormatException e) {
+                throw new IllegalStateException("harness 结果格式错误: " + line);
+            }
+        }
+    }
+
+    /**
+     * exec 执行结果
+     */
+    private record ExecResult(Long exitCode, boolean timeout) {
+    }
+
+    /**
+     * 在池化容器内执行命令，墙钟超时、CPU 时间超限、输出超限或比对失败时杀掉容器内的全部用户进程
+     *
+     * @param stdin          写入程序标准输入的数据，为 null 时不 attach stdin
+     * @param session        宿主机 cgroup 统计会话，为 null 时只按墙钟超时
+     * @param cpuLimitMillis CPU 时间上限 (ms)，仅 session 非空时生效
+     */
+    private ExecResult execInContainer(PooledContainer container, String cmd, long timeoutMillis, InputStream stdin,
+                                       OutputCollector collector, CgroupMonitor.Session session,
+                                       long cpuLimitMillis) throws InterruptedException {
+        ExecCreateCmdResponse execResponse = dockerClient.execCreateCmd(container.getContainerId())
+                .withAttachStdin(stdin != null)
+                .withAttachStdout(true)
+                .withAttachStderr(true)
+                .withTty(false) // 关闭 TTY，方便获取纯净输出
+                .withCmd("/bin/sh", "-c", cmd)
+                .exec();
+        String execId = execResponse.getId();
+
+        OutputCollector execCallback = collector;
+        dockerClient.execStartCmd(execId).withStdIn(stdin).exec(execCallback);
+
+        // 等待程序结束或超时：有 cgroup 统计时分段等待，每段检查一次 CPU 时间
+        boolean isTimeout = false;
+        try {
+            boolean completed;
+            if (session == null) {
+                completed = execCallback.awaitCompletion(timeoutMillis, TimeUnit.MILLISECONDS);
+            } else {
+                long deadline = System.currentTimeMillis() + timeoutMillis;
+                do {
+                    completed = execCallback.awaitCompletion(cgroupPollInterval, TimeUnit.MILLISECONDS);
+                } while (!completed && session.cpuMillis() <= cpuLimitMillis && System.currentTimeMillis() < deadline);
+            }
+            if (!completed) {
+                isTimeout = true;
+                containerPool.killProcesses(container);
+            } else if (collector.isStopped()) {
+                // 输出流被比对器提前关闭，程序可能还在运行
+                containerPool.killProcesses(container);
+            }
+        } catch (InterruptedException e) {
+            isTimeout = true;
+            containerPool.killProcesses(container);
+        }
+        try {
+            execCallback.close();
+        } catch (IOException e) {
+            log.warn("关闭 exec 输出流失败", e);
+        }
+
+        InspectExecResponse inspectResponse = dockerClient.inspectExecCmd(execId).exec();
+        return new ExecResult(inspectResponse.getExitCodeLong(), isTimeout);
+    }
+
+    /**
+     * exec 输出收集器
+     * 输出帧直接喂给流式比对器，不整体缓存；只保留前 MAX_OUTPUT_LENGTH 个字符用于展示。
+     * 累计输出超过上限或比对失败时立即关闭输出流，由调用方杀掉程序。
+     */
+    private static class OutputCollector extends ResultCallback.Adapter<Frame> {
+
+        private final StringBuilder displayOutput = new StringBuilder();
+
+        private final OutputComparator comparator;
+
+        private final long byteLimit;
+
+        // 标准输出的落盘文件 (特判用)，为 null 时不落盘
+        private final OutputStream stdoutFile;
+
+        private long totalBytes;
+
+        private volatile boolean outputLimitExceeded;
+
+        private volatile boolean mismatch;
+
+        OutputCollector(OutputComparator comparator, long byteLimit) {
+            this(comparator, byteLimit, null);
+        }
+
+        OutputCollector(OutputComparator comparator, long byteLimit, File stdoutFile) {
+            this.comparator = comparator;
+            this.byteLimit = byteLimit;
+            try {
+                this.stdoutFile = stdoutFile == null ? null : Files.newOutputStream(stdoutFile.toPath());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void onNext(Frame item) {
+            if (isStopped()) {
+                return;
+            }
+            byte[] payload = item.getPayload();
+            totalBytes += payload.length;
+            if (totalBytes > byteLimit) {
+                outputLimitExceeded = true;
+                stop();
+                return;
+            }
+            if (displayOutput.length() <= MAX_OUTPUT_LENGTH) {
+                displayOutput.append(new String(payload, StandardCharsets.UTF_8));
+                if (displayOutput.length() > MAX_OUTPUT_LENGTH) {
+                    displayOutput.setLength(MAX_OUTPUT_LENGTH);
+                    displayOutput.append("...[Output too long]");
+                }
+            }
+            if (comparator != null && !comparator.feed(payload, 0, payload.length)) {
+                mismatch = true;
+                stop();
+            }
+            if (stdoutFile != null && item.getStreamType() == StreamType.STDOUT) {
+                writeStdout(payload);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            if (stdoutFile != null) {
+                synchronized (stdoutFile) {
+                    stdoutFile.close();
+                }
+            }
+        }
+
+        private void writeStdout(byte[] payload) {
+            synchronized (stdoutFile) {
                 try {
-                    TimeUnit.MILLISECONDS.sleep(1500);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
+                    stdoutFile.write(payload);
+                } catch (IOException e) {
+                    // 超时强杀后文件可能已经关闭，此时的输出不再需要
+                    log.debug("写入标准输出文件失败: {}", e.getMessage());
                 }
+            }
+        }
 
-                // 3.2 尝试删除
-                if (!parentPath.exists()) {
-                    // 目录不存在，可能是已经被删除了
-                } else {
-                    boolean delSuccess = FileUtil.del(parentPath);
-                    if (delSuccess) {
-                        log.info("✅ Hutool 删除成功: {}", pathStr);
-                    } else {
-                        log.error("❌ Hutool 删除失败 (可能是权限或占用问题): {}", pathStr);
-                        // 3.3 NIO 暴力删除 (捕获具体异常信息)
-                        try {
-                            log.info("🔧 尝试使用 NIO 强制删除...");
-                            java.nio.file.Files.walkFileTree(parentPath.toPath(), new java.nio.file.SimpleFileVisitor<java.nio.file.Path>() {
-                                @Override
-                                public java.nio.file.FileVisitResult visitFile(java.nio.file.Path file, java.nio.file.attribute.BasicFileAttributes attrs) throws java.io.IOException {
-                                    java.nio.file.Files.delete(file);
-                                    return java.nio.file.FileVisitResult.CONTINUE;
-                                }
-                                @Override
-                                public java.nio.file.FileVisitResult postVisitDirectory(java.nio.file.Path dir, java.io.IOException exc) throws java.io.IOException {
-                                    java.nio.file.Files.delete(dir);
-                                    return java.nio.file.FileVisitResult.CONTINUE;
-                                }
-                            });
-                            log.info("✅ NIO 补刀删除成功");
-                        } catch (Exception e) {
-                            log.error("❌ NIO 删除也失败了，具体原因: ", e);
-                        }
-                    }
+        boolean isStopped() {
+            return outputLimitExceeded || mismatch;
+        }
+
+        boolean isOutputLimitExceeded() {
+            return outputLimitExceeded;
+        }
+
+        boolean isMismatch() {
+            return mismatch;
+        }
+
+        boolean isMatched() {
+            return comparator != null && comparator.finish();
+        }
+
+        String getDisplayOutput() {
+            return displayOutput.toString();
+        }
+
+        private void stop() {
+            try {
+                close();
+            } catch (IOException e) {
+                log.warn("关闭 exec 输出流失败", e);
+            }
+        }
+    }
+
+    /**
+     * harness 结果收集器：按行收集 harness 标准输出中的用例结果
+     * 每个用例一行，总长度超过 caseCount 行的合理上限时视为异常并关闭输出流
+     */
+    private static class HarnessCollector extends OutputCollector {
+
+        // 单行结果的长度上限 (序号、状态和四个数值)
+        private static final int MAX_LINE_BYTES = 128;
+
+        private final Consumer<String> lineConsumer;
+
+        private final long byteLimit;
+
+        private final StringBuilder pending = new StringBuilder();
+
+        private long totalBytes;
+
+        private volatile boolean overflow;
+
+        HarnessCollector(Consumer<String> lineConsumer, int caseCount) {
+            super(null, 0);
+            this.lineConsumer = lineConsumer;
+            this.byteLimit = (long) caseCount * MAX_LINE_BYTES;
+        }
+
+        @Override
+        public void onNext(Frame item) {
+            if (overflow) {
+                return;
+            }
+            if (item.getStreamType() != StreamType.STDOUT) {
+                log.warn("harness 输出: {}", new String(item.getPayload(), StandardCharsets.UTF_8).trim());
+                return;
+            }
+            byte[] payload = item.getPayload();
+            totalBytes += payload.length;
+            if (totalBytes > byteLimit) {
+                overflow = true;
+                try {
+                    close();
+                } catch (IOException e) {
+                    log.warn("关闭 exec 输出流失败", e);
                 }
+                return;
+            }
+            pending.append(new String(payload, StandardCharsets.US_ASCII));
+            int newline;
+            while ((newline = pending.indexOf("\n")) >= 0) {
+                lineConsumer.accept(pending.substring(0, newline));
+                pending.delete(0, newline + 1);
             }
         }
+
+        @Override
+        boolean isStopped() {
+            return overflow;
+        }
+
+        boolean isOverflow() {
+            return overflow || !pending.isEmpty();
+        }
     }
 
     /**
@@ -368,13 +1012,196 @@ public class DockerCodeSandbox implements CodeSandbox {
 
         InspectContainerResponse inspectResponse = dockerClient.inspectContainerCmd(containerId).exec();
         Long exitCode = inspectResponse.getState().getExitCodeLong();
-        dockerClient.removeContainerCmd(containerId).withForce(true).exec();
+        // 编译容器交给清理线程删除
+        sandboxReaper.removeLater(containerId, null);
 
         // 如果退出码不为0，说明编译失败，返回日志
         if (exitCode != 0) return compileLog.toString();
         return null;
     }
 
+    /**
+     * 特判程序
+     *
+     * @param runCmd          运行命令，后面依次追加输入、选手输出、标准答案三个文件路径
+     * @param sharedContainer 选手容器不能运行特判程序时 (Java 特判 + 非 Java 提交) 借出的容器，整个提交共用；否则为 null
+     * @param sequence        特判文件的序号，并行运行的用例共用一个容器时文件名不冲突
+     */
+    private record Checker(String runCmd, PooledContainer sharedContainer, AtomicInteger sequence) {
+    }
+
+    /**
+     * 准备特判程序：按源码哈希查编译缓存，未命中时在工作目录的子目录里单独编译 (产物不会混进选手代码的编译缓存)，
+     * 再把产物复制到工作目录，并行运行用例时会随工作目录一起复制到其他容器
+     */
+    private Checker prepareChecker(String checkerLanguage, File checkerFile, PooledContainer container) throws Exception {
+        String image;
+        String sourceName;
+        String artifactName;
+        String compileCmd;
+        String runCmd;
+        switch (StrUtil.nullToEmpty(checkerLanguage)) {
+            case "cpp":
+                image = "gcc:latest";
+                sourceName = "checker.cpp";
+                artifactName = "checker";
+                // 静态链接，产物可以在任何语言的容器里直接运行
+                compileCmd = "g++ -O2 -static -o /app/checker /app/checker.cpp && " + WORKSPACE_CHMOD;
+                runCmd = "/app/checker";
+                break;
+            case "java":
+                image = "eclipse-temurin:17-jdk";
+                sourceName = "Checker.java";
+                artifactName = "checker.jar";
+                // 打成一个 jar，不和选手的 class 文件混在一起
+                compileCmd = "mkdir -p /tmp/checker && javac -encoding utf-8 -d /tmp/checker /app/Checker.java"
+                        + " && jar cf /app/checker.jar -C /tmp/checker . && " + WORKSPACE_CHMOD;
+                runCmd = "java -Dfile.encoding=UTF-8 -cp /app/checker.jar Checker";
+                break;
+            default:
+                throw new IllegalArgumentException("不支持的特判程序语言: " + checkerLanguage);
+        }
+
+        String source = FileUtil.readString(checkerFile, StandardCharsets.UTF_8);
+        File workspace = container.getWorkspace();
+        String cacheKey = compileCache.buildKey("checker:" + checkerLanguage, image, source);
+        if (!compileCache.restore(cacheKey, workspace)) {
+            File buildDir = new File(workspace, ".checker-build");
+            try {
+                FileUtil.writeString(source, new File(buildDir, sourceName), StandardCharsets.UTF_8);
+                String compileMessage = compileFile(image, buildDir.getAbsolutePath(), compileCmd);
+                if (compileMessage != null) {
+                    throw new IllegalStateException(compileMessage);
+                }
+                compileCache.store(cacheKey, buildDir, sourceName);
+                Files.copy(new File(buildDir, artifactName).toPath(), new File(workspace, artifactName).toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+            } finally {
+                FileUtil.del(buildDir);
+            }
+        }
+
+        PooledContainer sharedContainer = null;
+        if (!image.equals(container.getImage()) && !"cpp".equals(checkerLanguage)) {
+            // 选手容器里没有 JVM：借一个常驻的 Java 容器专门运行特判程序
+            sharedContainer = containerPool.checkout(image);
+            Files.copy(new File(workspace, artifactName).toPath(),
+                    new File(sharedContainer.getWorkspace(), artifactName).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+        }
+        return new Checker(runCmd, sharedContainer, new AtomicInteger());
+    }
+
+    /**
+     * 在常驻容器内运行特判程序，判定一个用例
+     * 退出码 0 为通过，1 / 2 为答案错误 (testlib 的 WA / PE)，其他退出码或超时视为特判程序自身异常
+     *
+     * @param caseContainer 运行该用例的容器
+     * @param userOutput    选手程序的标准输出文件 (在 caseContainer 的工作目录中)
+     * @return 是否通过
+     */
+    private boolean runChecker(Checker checker, PooledContainer caseContainer, CaseData caseData,
+                               File userOutput) throws InterruptedException {
+        PooledContainer target = checker.sharedContainer() != null ? checker.sharedContainer() : caseContainer;
+        int seq = checker.sequence().getAndIncrement();
+        File workspace = target.getWorkspace();
+        File inputFile = new File(workspace, "spj_input_" + seq + ".txt");
+        File outputFile = new File(workspace, "spj_output_" + seq + ".txt");
+        File answerFile = new File(workspace, "spj_answer_" + seq + ".txt");
+        try {
+            caseData.writeInput(inputFile);
+            caseData.writeExpected(answerFile);
+            Files.move(userOutput.toPath(), outputFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            String cmd = checker.runCmd() + " /app/" + inputFile.getName() + " /app/" + outputFile.getName()
+                    + " /app/" + answerFile.getName();
+            OutputCollector collector = new OutputCollector(null, outputLimitBytes);
+            ExecResult execResult = execInContainer(target, cmd, checkerTimeLimit, null, collector, null, 0);
+            if (execResult.timeout()) {
+                throw new IllegalStateException("特判程序运行超时");
+            }
+            Long exitCode = execResult.exitCode();
+            if (exitCode != null && exitCode == 0) {
+                return true;
+            }
+            if (exitCode != null && (exitCode == 1 || exitCode == 2)) {
+                return false;
+            }
+            throw new IllegalStateException("特判程序异常退出 (" + exitCode + "): " + collector.getDisplayOutput());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            FileUtil.del(inputFile);
+            FileUtil.del(outputFile);
+            FileUtil.del(answerFile);
+        }
+    }
+
+    /**
+     * 辅助方法：把源码和编译产物复制到另一个容器的工作目录 (保留可执行权限)
+     */
+    private void copyWorkspace(File source, File target) throws IOException {
+        File[] files = source.listFiles(File::isFile);
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            Files.copy(file.toPath(), new File(target, file.getName()).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+        }
+    }
+
+    /**
+     * 辅助方法：以选手 uid 运行命令 (命令中不能含单引号)
+     */
+    private String asRunUser(String cmd) {
+        return String.format("setpriv --reuid=%d --regid=%d --clear-groups --no-new-privs /bin/sh -c '%s'",
+                runUid, runUid, cmd);
+    }
+
+    /**
+     * 辅助方法：文件只允许属主读写，容器内的选手 uid 无法读取
+     */
+    private void makeOwnerOnly(File file) throws IOException {
+        Files.setPosixFilePermissions(file.toPath(), PosixFilePermissions.fromString("rw-------"));
+    }
+
+    /**
+     * 辅助方法：读取容器写回工作目录的数值 (耗时、内存)
+     */
+    private long readLongFromFile(File file) {
+        if (!file.exists()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(FileUtil.readString(file, StandardCharsets.UTF_8).trim());
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 辅助方法：读取用例输出文件 (最多读取 MAX_OUTPUT_LENGTH 个字符)
+     */
+    private String readOutputFile(File file) {
+        if (!file.exists()) {
+            return "";
+        }
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            char[] buffer = new char[MAX_OUTPUT_LENGTH + 1];
+            int length = 0;
+            int read;
+            while (length < buffer.length && (read = reader.read(buffer, length, buffer.length - length)) != -1) {
+                length += read;
+            }
+            if (length > MAX_OUTPUT_LENGTH) {
+                return new String(buffer, 0, MAX_OUTPUT_LENGTH) + "...[Output too long]";
+            }
+            return new String(buffer, 0, length);
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
     /**
      * 辅助方法：构造错误响应
      */
@@ -0,0 +1,127 @@
+package com.nano.oj.judge.codesandbox.impl;
+
+import com.nano.oj.judge.codesandbox.CodeSandbox;
+import com.nano.oj.judge.codesandbox.model.ExecuteCodeRequest;
+import com.nano.oj.judge.codesandbox.model.ExecuteCodeResponse;
+import com.nano.oj.judge.metrics.JudgePhaseTimings;
+import com.nano.oj.model.dto.questionsubmit.JudgeInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压测用的假沙箱 (仅 loadtest profile 生效，替代 DockerCodeSandbox)
+ * 不启动容器，按配置的耗时和结果分布返回结果，用于在没有 Docker 的环境下压测判题以外的链路。
+ * 结果由代码内容决定 (随机种子取自代码哈希)：同一份代码每次得到相同的结果和耗时，压测可以复现。
+ */
+@Component
+@Primary
+@Profile("loadtest")
+@Slf4j
+public class FakeCodeSandbox implements CodeSandbox {
+
+    // 模拟的沙箱耗时 (ms)：base + [0, jitter]
+    @Value("${sandbox.fake.latency-ms:200}")
+    private long latencyMs;
+
+    @Value("${sandbox.fake.jitter-ms:100}")
+    private long jitterMs;
+
+    // 结果分布 (权重)
+    @Value("${sandbox.fake.weights.accepted:50}")
+    private int acceptedWeight;
+
+    @Value("${sandbox.fake.weights.wrong-answer:30}")
+    private int wrongAnswerWeight;
+
+    @Value("${sandbox.fake.weights.compile-error:5}")
+    private int compileErrorWeight;
+
+    @Value("${sandbox.fake.weights.runtime-error:5}")
+    private int runtimeErrorWeight;
+
+    @Value("${sandbox.fake.weights.time-limit-exceeded:10}")
+    private int timeLimitExceededWeight;
+
+    @Override
+    public ExecuteCodeResponse executeCode(ExecuteCodeRequest executeCodeRequest) {
+        String code = executeCodeRequest.getCode() == null ? "" : executeCodeRequest.getCode();
+        Random random = new Random(((long) code.hashCode() << 32) ^ String.valueOf(executeCodeRequest.getLanguage()).hashCode());
+        long latency = latencyMs + (jitterMs > 0 ? random.nextLong(jitterMs + 1) : 0);
+        JudgePhaseTimings timings = executeCodeRequest.getPhaseTimings();
+        long runStart = System.nanoTime();
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("判题运行异常: 被中断");
+        }
+        if (timings != null) {
+            timings.add(JudgePhaseTimings.RUN, runStart);
+        }
+
+        int caseCount = executeCodeRequest.getInputFileList() != null
+                ? executeCodeRequest.getInputFileList().size()
+                : (executeCodeRequest.getInputList() == null ? 0 : executeCodeRequest.getInputList().size());
+        long timeLimit = executeCodeRequest.getTimeLimit() == null ? 1000L : executeCodeRequest.getTimeLimit();
+        // 假的资源消耗：时间不超过限制的一半，内存 1MB ~ 64MB (KB)
+        long time = Math.max(1, random.nextLong(Math.max(2, timeLimit / 2)));
+        long memory = 1024 + random.nextLong(63 * 1024);
+
+        int roll = random.nextInt(Math.max(1, acceptedWeight + wrongAnswerWeight + compileErrorWeight
+                + runtimeErrorWeight + timeLimitExceededWeight));
+        if ((roll -= compileErrorWeight) < 0) {
+            return errorResponse("Compile Error", "main.cpp:1:1: error: simulated compile error", 0, 0);
+        }
+        if ((roll -= runtimeErrorWeight) < 0) {
+            return errorResponse("Runtime Error", "simulated runtime error", time, memory);
+        }
+        boolean timeLimitExceeded = (roll -= timeLimitExceededWeight) < 0;
+        boolean wrongAnswer = !timeLimitExceeded && (roll - wrongAnswerWeight) < 0;
+
+        // 答案错误时随机选一个失败用例；fail-fast 时只返回到失败用例为止
+        int failedCase = wrongAnswer && caseCount > 0 ? random.nextInt(caseCount) : -1;
+        int returnedCount = failedCase >= 0 && Boolean.TRUE.equals(executeCodeRequest.getFailFast())
+                ? failedCase + 1 : caseCount;
+        List<String> outputList = new ArrayList<>(Collections.nCopies(returnedCount, ""));
+        List<Boolean> passList = new ArrayList<>(returnedCount);
+        for (int i = 0; i < returnedCount; i++) {
+            passList.add(i != failedCase);
+        }
+
+        ExecuteCodeResponse response = new ExecuteCodeResponse();
+        response.setOutputList(outputList);
+        if (executeCodeRequest.getExpectedOutputFileList() != null || executeCodeRequest.getExpectedOutputList() != null) {
+            response.setPassList(passList);
+        }
+        response.setMessage("执行成功");
+        response.setStatus(1);
+        JudgeInfo judgeInfo = new JudgeInfo();
+        judgeInfo.setTime(timeLimitExceeded ? timeLimit + 1 : time);
+        judgeInfo.setWallTime(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - runStart));
+        judgeInfo.setMemory(memory);
+        response.setJudgeInfo(judgeInfo);
+        return response;
+    }
+
+    private ExecuteCodeResponse errorResponse(String message, String detail, long time, long memory) {
+        ExecuteCodeResponse response = new ExecuteCodeResponse();
+        response.setOutputList(new ArrayList<>());
+        response.setMessage(message);
+        response.setStatus(2);
+        JudgeInfo judgeInfo = new JudgeInfo();
+        judgeInfo.setTime(time);
+        judgeInfo.setMemory(memory);
+        judgeInfo.setDetail(detail);
+        response.setJudgeInfo(judgeInfo);
+        return response;
+    }
+}
@@ -0,0 +1,67 @@
+package com.nano.oj.judge.codesandbox.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 单个测试用例的运行结果 (沙箱内部使用)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CaseResult {
+    /**
+     * 程序输出 (stdout + stderr)
+     */
+    private String output;
+
+    /**
+     * 退出码
+     */
+    private Long exitCode;
+
+    /**
+     * CPU 时间 (ms)，宿主机 cgroup 不可用时为墙钟时间
+     */
+    private long time;
+
+    /**
+     * 墙钟时间 (ms)
+     */
+    private long wallTime;
+
+    /**
+     * 内存峰值 (Byte)
+     */
+    private long memory;
+
+    /**
+     * 是否超时被杀
+     */
+    private boolean timeout;
+
+    /**
+     * 是否超内存被杀
+     */
+    private boolean oomKilled;
+
+    /**
+     * 是否输出超限被杀
+     */
+    private boolean outputLimitExceeded;
+
+    /**
+     * 是否答案错误 (提供了预期输出时由沙箱比对，比对失败的程序会被立即杀掉)
+     */
+    private boolean wrongAnswer;
+
+    /**
+     * 是否运行错误 (非超时、非超内存、非输出超限、非比对失败被杀，但退出码不为 0)
+     */
+    public boolean isRuntimeError() {
+        return !timeout && !oomKilled && !outputLimitExceeded && !wrongAnswer && exitCode != null && exitCode != 0;
+    }
+}
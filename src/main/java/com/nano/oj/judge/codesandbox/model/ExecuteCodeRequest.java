@@ -1,10 +1,13 @@
 package com.nano.oj.judge.codesandbox.model;
 
+import com.nano.oj.judge.checker.CompareMode;
+import com.nano.oj.judge.metrics.JudgePhaseTimings;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.io.File;
 import java.util.List;
 
 @Data
@@ -17,6 +20,11 @@ public class ExecuteCodeRequest {
      */
     private List<String> inputList;
 
+    /**
+     * 输入用例文件列表 (测试数据存储中的文件，提供时优先于 inputList，沙箱直接复制文件，不经过堆)
+     */
+    private List<File> inputFileList;
+
     /**
      * 代码
      */
@@ -38,4 +46,45 @@ public class ExecuteCodeRequest {
      * ✨✨✨ 新增：用于直接限制容器大小
      */
     private Long memoryLimit;
-}
\ No newline at end of file
+
+    /**
+     * 预期输出列表 (提供时沙箱逐用例流式比对，比对失败立即杀掉程序，结果见 passList)
+     */
+    private List<String> expectedOutputList;
+
+    /**
+     * 预期输出文件列表 (提供时优先于 expectedOutputList，沙箱内存映射后流式比对)
+     */
+    private List<File> expectedOutputFileList;
+
+    /**
+     * 是否遇到第一个失败用例 (答案错误、超时、超内存) 就停止
+     * ACM 赛制和日常练习只关心第一个失败点；IOI / OI 需要部分分，必须跑完
+     */
+    private Boolean failFast;
+
+    /**
+     * 输出比对模式，为 null 时按 TOKEN 比对
+     */
+    private CompareMode compareMode;
+
+    /**
+     * 浮点比对 (FLOAT) 允许的误差，为 null 时使用默认值
+     */
+    private Double epsilon;
+
+    /**
+     * 特判程序的语言 (cpp / java)，提供了特判程序时不再按 compareMode 比对，由特判程序判定每个用例
+     */
+    private String checkerLanguage;
+
+    /**
+     * 特判程序的源码文件 (测试数据存储中的文件)
+     */
+    private File checkerFile;
+
+    /**
+     * 各阶段耗时 (可选)，沙箱把容器借出、编译、运行、清理等阶段的耗时写入其中
+     */
+    private JudgePhaseTimings phaseTimings;
+}
@@ -18,6 +18,11 @@ public class ExecuteCodeResponse {
      */
     private List<String> outputList;
 
+    /**
+     * 每个用例是否通过 (请求中提供了预期输出时由沙箱流式比对得出，否则为 null)
+     */
+    private List<Boolean> passList;
+
     /**
      * 接口信息
      */
@@ -0,0 +1,156 @@
+package com.nano.oj.judge.codesandbox.pool;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 容器 cgroup v2 资源统计
+ * 在宿主机上直接读取容器 cgroup 的 cpu.stat 和 memory.peak：
+ * - CPU 时间取 usage_usec 的差值，不包含容器启动、exec 建立等开销
+ * - memory.peak 通过同一个文件描述符写入重置 (内核 6.12+)，得到的是本次运行的峰值，不受池化容器之前运行的影响
+ * 判题服务不在宿主机 (看不到容器 cgroup) 时返回 null，由调用方回退到容器内统计。
+ */
+@Component
+@Slf4j
+public class CgroupMonitor {
+
+    // cgroup v2 挂载点
+    @Value("${sandbox.cgroup.root:/sys/fs/cgroup}")
+    private String cgroupRoot;
+
+    @Value("${sandbox.cgroup.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 开始一次统计：记录 CPU 用量基线并重置内存峰值
+     *
+     * @return 统计会话，容器 cgroup 不可用时返回 null
+     */
+    public Session open(PooledContainer container) {
+        if (!enabled) {
+            return null;
+        }
+        File cgroupDir = resolveCgroupDir(container);
+        if (cgroupDir == null) {
+            return null;
+        }
+        try {
+            return new Session(cgroupDir);
+        } catch (IOException e) {
+            log.warn("⚠️ 读取容器 cgroup 失败，回退到容器内统计: {}", cgroupDir, e);
+            return null;
+        }
+    }
+
+    /**
+     * 定位容器的 cgroup 目录 (兼容 systemd 和 cgroupfs 两种 cgroup driver)，结果缓存在容器上
+     */
+    private File resolveCgroupDir(PooledContainer container) {
+        if (container.getCgroupDir() != null) {
+            return container.getCgroupDir();
+        }
+        String containerId = container.getContainerId();
+        File[] candidates = {
+                new File(cgroupRoot, "system.slice/docker-" + containerId + ".scope"),
+                new File(cgroupRoot, "docker/" + containerId)
+        };
+        for (File candidate : candidates) {
+            if (new File(candidate, "cpu.stat").canRead()) {
+                container.setCgroupDir(candidate);
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 一次运行的资源统计会话
+     */
+    public static class Session implements Closeable {
+
+        private final File cpuStatFile;
+
+        private final long startUsageMicros;
+
+        private final FileChannel peakChannel;
+
+        // memory.peak 是否成功重置，失败时读到的是容器生命周期内的峰值
+        private final boolean peakReset;
+
+        private Session(File cgroupDir) throws IOException {
+            this.cpuStatFile = new File(cgroupDir, "cpu.stat");
+            FileChannel channel;
+            boolean reset;
+            File peakFile = new File(cgroupDir, "memory.peak");
+            try {
+                channel = FileChannel.open(peakFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+                channel.write(ByteBuffer.wrap("reset\n".getBytes(StandardCharsets.US_ASCII)));
+                reset = true;
+            } catch (IOException e) {
+                // 老内核不支持按 fd 重置，只读打开
+                channel = FileChannel.open(peakFile.toPath(), StandardOpenOption.READ);
+                reset = false;
+            }
+            this.peakChannel = channel;
+            this.peakReset = reset;
+            this.startUsageMicros = readUsageMicros();
+        }
+
+        /**
+         * 自会话开始以来消耗的 CPU 时间 (ms)
+         */
+        public long cpuMillis() {
+            try {
+                return (readUsageMicros() - startUsageMicros) / 1000;
+            } catch (IOException e) {
+                return 0;
+            }
+        }
+
+        /**
+         * 自会话开始以来的内存峰值 (Byte)
+         */
+        public long peakBytes() {
+            try {
+                ByteBuffer buffer = ByteBuffer.allocate(32);
+                peakChannel.read(buffer, 0);
+                return Long.parseLong(new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII).trim());
+            } catch (IOException | NumberFormatException e) {
+                return 0;
+            }
+        }
+
+        public boolean isPeakReset() {
+            return peakReset;
+        }
+
+        private long readUsageMicros() throws IOException {
+            // cpu.stat 第一行: usage_usec <n>
+            for (String line : Files.readAllLines(cpuStatFile.toPath(), StandardCharsets.US_ASCII)) {
+                if (line.startsWith("usage_usec ")) {
+                    return Long.parseLong(line.substring("usage_usec ".length()).trim());
+                }
+            }
+            throw new IOException("cpu.stat 中没有 usage_usec");
+        }
+
+        @Override
+        public void close() {
+            try {
+                peakChannel.close();
+            } catch (IOException ignored) {
+                // 只读统计文件，关闭失败无影响
+            }
+        }
+    }
+}
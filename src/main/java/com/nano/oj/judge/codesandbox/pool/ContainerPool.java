@@ -0,0 +1,326 @@
+package com.nano.oj.judge.codesandbox.pool;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.StrUtil;
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.CreateContainerResponse;
+import com.github.dockerjava.api.command.ExecCreateCmdResponse;
+import com.github.dockerjava.api.model.Bind;
+import com.github.dockerjava.api.model.Frame;
+import com.github.dockerjava.api.model.HostConfig;
+import com.github.dockerjava.api.model.Volume;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 沙箱容器池
+ * 按镜像预先创建并启动常驻容器，判题时通过 exec 在容器内运行程序，
+ * 避免每个测试用例都走一遍 create -> start -> remove 的完整生命周期。
+ * 容器归还时会清理进程、/tmp 和工作目录，复用达到上限后销毁重建。
+ * 工作目录默认放在内存文件系统 (/dev/shm) 上，重置与销毁都交给 {@link SandboxReaper} 异步执行。
+ */
+@Component
+@Slf4j
+public class ContainerPool {
+
+    /**
+     * 需要预热的镜像 (与 DockerCodeSandbox 中的语言配置保持一致)
+     */
+    public static final List<String> IMAGES = List.of("eclipse-temurin:17-jdk", "gcc:latest", "python:3.9");
+
+    @Resource
+    private DockerClient dockerClient;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    // 每个镜像常驻的空闲容器数
+    @Value("${sandbox.pool.size:2}")
+    private int poolSize;
+
+    // 每个镜像最多保留的空闲容器数，超出的归还时直接销毁
+    @Value("${sandbox.pool.max-idle:4}")
+    private int maxIdle;
+
+    // 单个容器最多被借出的次数，达到后回收重建
+    @Value("${sandbox.pool.max-uses:20}")
+    private int maxUses;
+
+    // 超出 size 部分的空闲容器，空闲多久后被淘汰 (ms)
+    @Value("${sandbox.pool.idle-timeout:600000}")
+    private long idleTimeout;
+
+    // 容器创建时的默认内存上限，借出后由沙箱按题目限制调整
+    @Value("${sandbox.pool.default-memory:536870912}")
+    private long defaultMemory;
+
+    private final Map<String, BlockingDeque<PooledContainer>> idlePools = new ConcurrentHashMap<>();
+
+    // 补充容器在后台单线程进行，不占用判题线程
+    private final ExecutorService refillExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "sandbox-pool-refill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 工作目录根路径，留空时优先使用内存文件系统 /dev/shm，不可用再退回磁盘 tempCode
+    @Value("${sandbox.workspace.root:}")
+    private String workspaceRoot;
+
+    @Resource
+    private SandboxReaper sandboxReaper;
+
+    private String poolRootPath;
+
+    @PostConstruct
+    public void init() {
+        poolRootPath = resolveWorkspaceRoot() + File.separator + "pool";
+        log.info("📂 沙箱工作目录: {}", poolRootPath);
+        for (String image : IMAGES) {
+            getIdlePool(image);
+            refill(image);
+        }
+    }
+
+    /**
+     * 借出一个容器 (池为空时同步创建)
+     */
+    public PooledContainer checkout(String image) {
+        BlockingDeque<PooledContainer> idlePool = getIdlePool(image);
+        PooledContainer container = idlePool.pollFirst();
+        if (container != null) {
+            checkoutCounter(image, "hit").increment();
+        } else {
+            checkoutCounter(image, "miss").increment();
+            container = createContainer(image);
+        }
+        // 借出后异步补齐，保证下一个请求大概率命中
+        refill(image);
+        return container;
+    }
+
+    /**
+     * 调整容器内存上限 (借出后按题目限制设置)
+     */
+    public void updateMemory(PooledContainer container, long memoryLimit) {
+        dockerClient.updateContainerCmd(container.getContainerId())
+                .withMemory(memoryLimit)
+                .withMemorySwap(memoryLimit) // 限制 swap 防止 OOM 逃逸
+                .exec();
+    }
+
+    /**
+     * 把容器绑定到指定 CPU 核心 (由 CpuSlotScheduler 分配)
+     */
+    public void pinCpu(PooledContainer container, int core) {
+        dockerClient.updateContainerCmd(container.getContainerId())
+                .withCpusetCpus(String.valueOf(core))
+                .exec();
+    }
+
+    /**
+     * 杀掉容器内除 PID 1 (sleep) 以外的全部进程，用于超时强杀
+     */
+    public void killProcesses(PooledContainer container) {
+        execQuietly(container, "kill -9 -1 2>/dev/null; true");
+    }
+
+    /**
+     * 归还容器
+     *
+     * @param healthy 本次使用过程中是否出现过 Docker 层面的异常，异常容器直接销毁
+     */
+    public void release(PooledContainer container, boolean healthy) {
+        container.setUses(container.getUses() + 1);
+        BlockingDeque<PooledContainer> idlePool = getIdlePool(container.getImage());
+
+        if (!healthy || container.getUses() >= maxUses || idlePool.size() >= maxIdle) {
+            destroy(container);
+            return;
+        }
+
+        // 重置放到清理线程异步完成，判题线程直接返回
+        sandboxReaper.runLater(() -> {
+            try {
+                // 清理残留进程和 /tmp，再清空工作目录，保证下一个借用者拿到干净的环境
+                execQuietly(container, "kill -9 -1 2>/dev/null; rm -rf /tmp/* /tmp/.[!.]* 2>/dev/null; true");
+                FileUtil.clean(container.getWorkspace());
+            } catch (Exception e) {
+                log.warn("⚠️ 容器重置失败，直接销毁: {}", container.getContainerId(), e);
+                destroy(container);
+                return;
+            }
+            container.setLastReleaseTime(System.currentTimeMillis());
+            // 放回队头，优先复用热容器，队尾的容器空闲更久，会先被淘汰
+            idlePool.offerFirst(container);
+        });
+    }
+
+    /**
+     * 定时淘汰超出常驻数量且空闲过久的容器
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        for (BlockingDeque<PooledContainer> idlePool : idlePools.values()) {
+            while (idlePool.size() > poolSize) {
+                PooledContainer oldest = idlePool.peekLast();
+                if (oldest == null || now - oldest.getLastReleaseTime() < idleTimeout) {
+                    break;
+                }
+                if (idlePool.removeLastOccurrence(oldest)) {
+                    destroy(oldest);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refillExecutor.shutdownNow();
+        for (BlockingDeque<PooledContainer> idlePool : idlePools.values()) {
+            Iterator<PooledContainer> iterator = idlePool.iterator();
+            while (iterator.hasNext()) {
+                PooledContainer container = iterator.next();
+                iterator.remove();
+                // 停机时同步删除，此时清理线程可能已经停了
+                try {
+                    dockerClient.removeContainerCmd(container.getContainerId()).withForce(true).exec();
+                } catch (Exception e) {
+                    log.warn("⚠️ 删除容器失败: {}", container.getContainerId(), e);
+                }
+                FileUtil.del(container.getWorkspace());
+            }
+        }
+    }
+
+    private BlockingDeque<PooledContainer> getIdlePool(String image) {
+        return idlePools.computeIfAbsent(image, key -> {
+            BlockingDeque<PooledContainer> idlePool = new LinkedBlockingDeque<>();
+            Gauge.builder("sandbox.pool.idle", idlePool, BlockingDeque::size)
+                    .tag("image", key)
+                    .description("沙箱容器池空闲容器数")
+                    .register(meterRegistry);
+            return idlePool;
+        });
+    }
+
+    private Counter checkoutCounter(String image, String result) {
+        return Counter.builder("sandbox.pool.checkout")
+                .tag("image", image)
+                .tag("result", result)
+                .description("沙箱容器池借出次数 (hit: 命中空闲容器, miss: 现场创建)")
+                .register(meterRegistry);
+    }
+
+    private void refill(String image) {
+        BlockingDeque<PooledContainer> idlePool = getIdlePool(image);
+        refillExecutor.execute(() -> {
+            while (idlePool.size() < poolSize) {
+                try {
+                    PooledContainer container = createContainer(image);
+                    container.setLastReleaseTime(System.currentTimeMillis());
+                    idlePool.offerLast(container);
+                } catch (Exception e) {
+                    log.warn("⚠️ 预热容器失败, image: {}", image, e);
+                    break;
+                }
+            }
+        });
+    }
+
+    private PooledContainer createContainer(String image) {
+        File workspace = new File(poolRootPath, UUID.randomUUID().toString());
+        workspace.mkdirs();
+        // 工作目录只允许属主 (判题服务) 写入，容器内降权运行的选手程序不能新建、替换文件
+        try {
+            Files.setPosixFilePermissions(workspace.toPath(), PosixFilePermissions.fromString("rwxr-xr-x"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        CreateContainerResponse response = dockerClient.createContainerCmd(image)
+                .withNetworkDisabled(true) // 禁用网络，防止恶意代码
+                .withHostConfig(new HostConfig()
+                        .withBinds(new Bind(workspace.getAbsolutePath(), new Volume("/app"))) // 挂载独占工作目录
+                        .withMemory(defaultMemory)
+                        .withMemorySwap(defaultMemory)
+                        .withCpuCount(1L)
+                        .withReadonlyRootfs(true) // 只读根文件系统，防止修改环境
+                        .withTmpFs(Collections.singletonMap("/tmp", "rw,exec,nosuid,size=64m"))
+                )
+                .withEnv("LANG=C.UTF-8", "LC_ALL=C.UTF-8") // 防止中文乱码
+                .withTty(false)
+                .withCmd("sleep", "infinity") // 常驻进程，真正的程序通过 exec 运行
+                .exec();
+        String containerId = response.getId();
+        try {
+            dockerClient.startContainerCmd(containerId).exec();
+        } catch (Exception e) {
+            sandboxReaper.removeLater(containerId, workspace);
+            throw e;
+        }
+        log.info("📦 沙箱容器已就绪, image: {}, id: {}", image, containerId);
+        return new PooledContainer(containerId, image, workspace);
+    }
+
+    private String resolveWorkspaceRoot() {
+        if (StrUtil.isNotBlank(workspaceRoot)) {
+            return workspaceRoot;
+        }
+        // /dev/shm 是 Linux 默认挂载的 tmpfs，代码和用例读写全部走内存
+        File shm = new File("/dev/shm");
+        if (shm.isDirectory() && shm.canWrite()) {
+            return shm.getAbsolutePath() + File.separator + "nano-oj";
+        }
+        return System.getProperty("user.dir") + File.separator + "tempCode";
+    }
+
+    private void destroy(PooledContainer container) {
+        sandboxReaper.removeLater(container.getContainerId(), container.getWorkspace());
+        Counter.builder("sandbox.pool.recycled")
+                .tag("image", container.getImage())
+                .description("沙箱容器池销毁的容器数")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private void execQuietly(PooledContainer container, String cmd) {
+        ExecCreateCmdResponse execResponse = dockerClient.execCreateCmd(container.getContainerId())
+                .withCmd("/bin/sh", "-c", cmd)
+                .exec();
+        try {
+            dockerClient.execStartCmd(execResponse.getId())
+                    .exec(new ResultCallback.Adapter<Frame>())
+                    .awaitCompletion(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
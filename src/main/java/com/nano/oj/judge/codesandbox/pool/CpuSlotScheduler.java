@@ -0,0 +1,103 @@
+package com.nano.oj.judge.codesandbox.pool;
+
+import cn.hutool.core.util.StrUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * CPU 核心槽位调度器
+ * 每个核心是一个槽位，运行用户程序前必须先申请，容器通过 cpuset 绑定到申请到的核心上。
+ * 全部判题请求共享同一份槽位预算，同一时刻一个核心只跑一个用户程序，保证计时稳定；
+ * 空闲核心较多时，一次提交可以申请多个槽位并行跑不同的测试用例。
+ */
+@Component
+@Slf4j
+public class CpuSlotScheduler {
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    // 可用于判题的核心列表，如 "2-31" 或 "2,3,4,5"，留空时使用除前 reserved 个以外的全部核心
+    @Value("${sandbox.cpu.cores:}")
+    private String cores;
+
+    // 留给判题服务自身和 Docker 守护进程的核心数 (仅 cores 留空时生效)
+    @Value("${sandbox.cpu.reserved:1}")
+    private int reserved;
+
+    // 单次提交最多同时占用的核心数，避免一个提交占满全部槽位
+    @Value("${sandbox.cpu.max-per-submission:4}")
+    private int maxPerSubmission;
+
+    private final BlockingQueue<Integer> freeCores = new LinkedBlockingQueue<>();
+
+    @PostConstruct
+    public void init() {
+        List<Integer> coreList = StrUtil.isNotBlank(cores) ? parseCores(cores) : defaultCores();
+        freeCores.addAll(coreList);
+        Gauge.builder("sandbox.cpu.slots.free", freeCores, BlockingQueue::size)
+                .description("空闲的 CPU 核心槽位数")
+                .register(meterRegistry);
+        log.info("🧮 CPU 槽位已初始化, 核心: {}", coreList);
+    }
+
+    /**
+     * 申请核心槽位
+     * 至少拿到一个 (阻塞等待)，其余按空闲情况尽量拿，不额外等待
+     *
+     * @param wanted 期望的核心数 (通常为用例数)
+     * @return 申请到的核心编号，用完必须调用 {@link #release(List)} 归还
+     */
+    public List<Integer> acquire(int wanted) throws InterruptedException {
+        int limit = Math.max(1, Math.min(wanted, maxPerSubmission));
+        List<Integer> acquired = new ArrayList<>(limit);
+        acquired.add(freeCores.take());
+        freeCores.drainTo(acquired, limit - 1);
+        return acquired;
+    }
+
+    public void release(List<Integer> acquired) {
+        if (acquired != null) {
+            freeCores.addAll(acquired);
+        }
+    }
+
+    private List<Integer> defaultCores() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        List<Integer> coreList = new ArrayList<>();
+        for (int i = Math.min(reserved, processors - 1); i < processors; i++) {
+            coreList.add(i);
+        }
+        return coreList;
+    }
+
+    /**
+     * 解析 cpuset 风格的核心列表："0-3,6,8-9"
+     */
+    private List<Integer> parseCores(String value) {
+        List<Integer> coreList = new ArrayList<>();
+        for (String part : StrUtil.splitTrim(value, ',')) {
+            if (part.contains("-")) {
+                List<String> range = StrUtil.splitTrim(part, '-');
+                int start = Integer.parseInt(range.get(0));
+                int end = Integer.parseInt(range.get(1));
+                for (int i = start; i <= end; i++) {
+                    coreList.add(i);
+                }
+            } else {
+                coreList.add(Integer.parseInt(part));
+            }
+        }
+        return coreList;
+    }
+}
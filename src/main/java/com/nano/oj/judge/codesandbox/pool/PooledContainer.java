@@ -0,0 +1,43 @@
+package com.nano.oj.judge.codesandbox.pool;
+
+import lombok.Data;
+
+import java.io.File;
+
+/**
+ * 池化容器
+ * 一个常驻 (sleep infinity) 的沙箱容器 + 它独占挂载的宿主机工作目录
+ */
+@Data
+public class PooledContainer {
+
+    /**
+     * 容器 ID
+     */
+    private final String containerId;
+
+    /**
+     * 镜像名 (同时也是所属池的 key)
+     */
+    private final String image;
+
+    /**
+     * 宿主机工作目录，挂载到容器内 /app
+     */
+    private final File workspace;
+
+    /**
+     * 已被借出使用的次数
+     */
+    private int uses;
+
+    /**
+     * 最近一次归还时间 (用于空闲淘汰)
+     */
+    private long lastReleaseTime;
+
+    /**
+     * 宿主机上该容器的 cgroup 目录 (首次统计时解析，不可用时为 null)
+     */
+    private File cgroupDir;
+}
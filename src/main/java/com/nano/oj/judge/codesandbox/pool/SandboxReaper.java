@@ -0,0 +1,136 @@
+package com.nano.oj.judge.codesandbox.pool;
+
+import cn.hutool.core.io.FileUtil;
+import com.github.dockerjava.api.DockerClient;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * 沙箱清理线程 (Reaper)
+ * 容器删除、工作目录删除、池化容器重置都投递到这里，由后台线程批量处理，
+ * 判题线程拿到结果即可返回，不再同步等待清理。
+ */
+@Component
+@Slf4j
+public class SandboxReaper {
+
+    @Resource
+    private DockerClient dockerClient;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    // 单批最多处理的任务数
+    @Value("${sandbox.reaper.batch-size:32}")
+    private int batchSize;
+
+    private final BlockingQueue<ReapTask> queue = new LinkedBlockingQueue<>();
+
+    private Thread reaperThread;
+
+    private volatile boolean running = true;
+
+    /**
+     * 清理任务：要删除的容器 / 目录，或一个自定义动作 (如重置后放回池中)
+     */
+    private record ReapTask(String containerId, File directory, Runnable action) {
+    }
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("sandbox.reaper.pending", queue, BlockingQueue::size)
+                .description("等待清理的任务数")
+                .register(meterRegistry);
+        reaperThread = new Thread(this::loop, "sandbox-reaper");
+        reaperThread.setDaemon(true);
+        reaperThread.start();
+    }
+
+    /**
+     * 删除容器 (强制) 及其工作目录，二者都可为空
+     */
+    public void removeLater(String containerId, File directory) {
+        queue.offer(new ReapTask(containerId, directory, null));
+    }
+
+    /**
+     * 在清理线程上执行一个动作
+     */
+    public void runLater(Runnable action) {
+        queue.offer(new ReapTask(null, null, action));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        reaperThread.interrupt();
+        // 停机前把剩余任务处理掉，尽量不留孤儿容器
+        List<ReapTask> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        process(remaining);
+    }
+
+    private void loop() {
+        List<ReapTask> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("清理任务执行异常", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 按类型分组处理：先删容器 (释放目录占用)，再删目录，最后执行自定义动作
+     */
+    private void process(List<ReapTask> batch) {
+        for (ReapTask task : batch) {
+            if (task.containerId() == null) {
+                continue;
+            }
+            try {
+                dockerClient.removeContainerCmd(task.containerId()).withForce(true).exec();
+            } catch (Exception e) {
+                log.warn("⚠️ 删除容器失败: {}", task.containerId(), e);
+            }
+        }
+        for (ReapTask task : batch) {
+            if (task.directory() != null && task.directory().exists() && !FileUtil.del(task.directory())) {
+                log.error("❌ 删除目录失败: {}", task.directory().getAbsolutePath());
+            }
+        }
+        for (ReapTask task : batch) {
+            if (task.action() == null) {
+                continue;
+            }
+            try {
+                task.action().run();
+            } catch (Exception e) {
+                log.warn("⚠️ 清理动作执行失败", e);
+            }
+        }
+        if (batch.size() > 1) {
+            log.info("🧹 批量清理完成, 任务数: {}", batch.size());
+        }
+    }
+}
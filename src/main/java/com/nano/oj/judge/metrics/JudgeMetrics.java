@@ -0,0 +1,73 @@
+package com.nano.oj.judge.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.Resource;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 判题链路指标 (通过 actuator 的 /metrics 暴露)
+ * judge.phase{phase, language, verdict}：各阶段耗时直方图
+ * judge.duration{language, verdict}：从开始判题到写入结果的总耗时
+ * judge.verdict{language, verdict}：判题结果分布
+ * sandbox.failure{language, stage}：沙箱系统异常次数
+ */
+@Component
+public class JudgeMetrics {
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 上报一次判题的各阶段耗时和结果
+     */
+    public void record(JudgePhaseTimings timings, String language, String verdict) {
+        String languageTag = tagValue(language);
+        String verdictTag = tagValue(verdict);
+        for (Map.Entry<String, Long> entry : timings.getPhaseNanos().entrySet()) {
+            Timer.builder("judge.phase")
+                    .description("判题各阶段耗时")
+                    .tag("phase", entry.getKey())
+                    .tag("language", languageTag)
+                    .tag("verdict", verdictTag)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(entry.getValue(), TimeUnit.NANOSECONDS);
+        }
+        Timer.builder("judge.duration")
+                .description("判题总耗时")
+                .tag("language", languageTag)
+                .tag("verdict", verdictTag)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(timings.elapsedNanos(), TimeUnit.NANOSECONDS);
+        Counter.builder("judge.verdict")
+                .description("判题结果分布")
+                .tag("language", languageTag)
+                .tag("verdict", verdictTag)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 沙箱系统异常 (编译容器异常、运行异常等，不含用户代码本身的错误)
+     *
+     * @param stage 出错的阶段，如 compile / run
+     */
+    public void sandboxFailure(String language, String stage) {
+        Counter.builder("sandbox.failure")
+                .description("沙箱系统异常次数")
+                .tag("language", tagValue(language))
+                .tag("stage", stage)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static String tagValue(String value) {
+        return value == null || value.isBlank() ? "unknown" : value;
+    }
+}
@@ -0,0 +1,50 @@
+package com.nano.oj.judge.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 一次判题各阶段的耗时
+ * 判题服务和沙箱在各自的阶段结束时写入，判出结果后由 {@link JudgeMetrics} 按语言和结果统一上报。
+ * 同一阶段多次写入时累加 (如多个容器的借出)。
+ */
+public class JudgePhaseTimings {
+
+    public static final String QUEUE_WAIT = "queue_wait";
+    public static final String PROBLEM_LOAD = "problem_load";
+    public static final String CONTAINER_ACQUIRE = "container_acquire";
+    public static final String COMPILE = "compile";
+    public static final String CPU_SLOT_WAIT = "cpu_slot_wait";
+    public static final String CONTAINER_PREPARE = "container_prepare";
+    public static final String RUN = "run";
+    public static final String CLEANUP = "cleanup";
+    public static final String DB_WRITE = "db_write";
+
+    private final long startNanos = System.nanoTime();
+
+    // 阶段 -> 耗时 (ns)，按首次写入的顺序
+    private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+
+    /**
+     * 记录从 sinceNanos (System.nanoTime) 到现在的耗时
+     */
+    public synchronized void add(String phase, long sinceNanos) {
+        put(phase, System.nanoTime() - sinceNanos);
+    }
+
+    public synchronized void put(String phase, long nanos) {
+        phaseNanos.merge(phase, Math.max(0, nanos), Long::sum);
+    }
+
+    /**
+     * 从创建到现在的总耗时 (ns)
+     */
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    public synchronized Map<String, Long> getPhaseNanos() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(phaseNanos));
+    }
+}
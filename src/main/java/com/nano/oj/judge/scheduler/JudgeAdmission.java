@@ -0,0 +1,201 @@
+package com.nano.oj.judge.scheduler;
+
+import com.nano.oj.config.MqConfig;
+import com.nano.oj.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 判题准入控制
+ * 提交 / 自测进入判题前先经过两道闸：
+ * 1. 每个用户一个令牌桶 (提交和自测分开计)，允许短时突发，长期速率受限；
+ * 2. 全局排队深度上限：判题任务队列 + 本进程调度器中排队的任务数达到上限时拒绝所有新请求。
+ * 被拒绝的请求返回 HTTP 429 + Retry-After。
+ */
+@Component
+@Slf4j
+public class JudgeAdmission {
+
+    // 全局排队已满时建议的重试间隔 (秒)
+    private static final long QUEUE_FULL_RETRY_AFTER_SECONDS = 10;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Resource
+    private JudgeScheduler judgeScheduler;
+
+    @Resource
+    private AmqpAdmin amqpAdmin;
+
+    @Value("${judge.admission.enabled:true}")
+    private boolean enabled;
+
+    // 每个用户的提交令牌桶：容量 (允许的突发数) 和每分钟补充的令牌数
+    @Value("${judge.admission.submit.burst:5}")
+    private int submitBurst;
+
+    @Value("${judge.admission.submit.per-minute:10}")
+    private int submitPerMinute;
+
+    // 每个用户的自测令牌桶
+    @Value("${judge.admission.run.burst:5}")
+    private int runBurst;
+
+    @Value("${judge.admission.run.per-minute:20}")
+    private int runPerMinute;
+
+    // 全局排队深度上限
+    @Value("${judge.admission.max-queue-depth:500}")
+    private int maxQueueDepth;
+
+    @Value("${judge.queue.enabled:true}")
+    private boolean judgeQueueEnabled;
+
+    private final Map<Kind, Map<Long, TokenBucket>> buckets = new EnumMap<>(Kind.class);
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    // 判题任务队列中待消费的消息数 (定时采样，避免每个请求都查询 MQ)
+    private volatile int mqQueueDepth;
+
+    /**
+     * 准入的请求类型
+     */
+    public enum Kind {
+        SUBMIT("submit"),
+        RUN("run");
+
+        private final String value;
+
+        Kind(String value) {
+            this.value = value;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        buckets.put(Kind.SUBMIT, new ConcurrentHashMap<>());
+        buckets.put(Kind.RUN, new ConcurrentHashMap<>());
+        Gauge.builder("judge.admission.queue.depth", this, JudgeAdmission::currentQueueDepth)
+                .description("准入控制看到的全局判题排队深度")
+                .register(meterRegistry);
+        Gauge.builder("judge.admission.buckets", buckets, map -> map.values().stream().mapToInt(Map::size).sum())
+                .description("活跃的用户令牌桶数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 准入检查，超限时抛出 {@link TooManyRequestsException}
+     */
+    public void admit(Kind kind, long userId) {
+        if (!enabled) {
+            return;
+        }
+        // 先查全局闸，避免排队已满时白白消耗用户的令牌
+        if (currentQueueDepth() >= maxQueueDepth) {
+            count(kind, "rejected_global");
+            throw new TooManyRequestsException("判题繁忙，请稍后再试", QUEUE_FULL_RETRY_AFTER_SECONDS);
+        }
+        int burst = kind == Kind.SUBMIT ? submitBurst : runBurst;
+        int perMinute = kind == Kind.SUBMIT ? submitPerMinute : runPerMinute;
+        TokenBucket bucket = buckets.get(kind).computeIfAbsent(userId, key -> new TokenBucket(burst, perMinute));
+        long waitNanos = bucket.tryAcquire();
+        if (waitNanos > 0) {
+            count(kind, "rejected_user");
+            throw new TooManyRequestsException("操作过于频繁，请稍后再试",
+                    (long) Math.ceil(waitNanos / (double) TimeUnit.SECONDS.toNanos(1)));
+        }
+        count(kind, "accepted");
+    }
+
+    /**
+     * 定时采样判题任务队列深度，并清理已经补满的令牌桶 (补满的桶与新建的桶等价)
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void refresh() {
+        if (judgeQueueEnabled) {
+            try {
+                QueueInformation queueInformation = amqpAdmin.getQueueInfo(MqConfig.JUDGE_TASK_QUEUE);
+                mqQueueDepth = queueInformation != null ? queueInformation.getMessageCount() : 0;
+            } catch (Exception e) {
+                // MQ 不可用时保留上一次的采样值
+                log.warn("⚠️ 判题任务队列深度采样失败: {}", e.getMessage());
+            }
+        }
+        buckets.values().forEach(map -> map.values().removeIf(TokenBucket::isFull));
+    }
+
+    private int currentQueueDepth() {
+        return mqQueueDepth + judgeScheduler.queuedCount();
+    }
+
+    private void count(Kind kind, String result) {
+        counters.computeIfAbsent(kind.value + ":" + result, key -> Counter.builder("judge.admission")
+                .description("判题准入次数")
+                .tag("kind", kind.value)
+                .tag("result", result)
+                .register(meterRegistry)).increment();
+    }
+
+    /**
+     * 令牌桶：容量 burst，每分钟补充 perMinute 个令牌
+     */
+    private static class TokenBucket {
+
+        private final double capacity;
+
+        // 每补充一个令牌需要的纳秒数
+        private final double nanosPerToken;
+
+        private double tokens;
+
+        private long lastRefillNanos;
+
+        TokenBucket(int burst, int perMinute) {
+            this.capacity = Math.max(1, burst);
+            this.nanosPerToken = TimeUnit.MINUTES.toNanos(1) / (double) Math.max(1, perMinute);
+            this.tokens = capacity;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        /**
+         * 尝试取一个令牌
+         *
+         * @return 0 表示成功；否则为还需等待的纳秒数
+         */
+        synchronized long tryAcquire() {
+            refill();
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) ((1 - tokens) * nanosPerToken));
+        }
+
+        synchronized boolean isFull() {
+            refill();
+            return tokens >= capacity;
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) / nanosPerToken);
+            lastRefillNanos = now;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.nano.oj.judge.scheduler;
+
+/**
+ * 判题通道
+ * 不同来源的判题请求分开排队，按权重轮流出队：比赛最优先，但不会把练习和自测完全饿死
+ */
+public enum JudgeLane {
+
+    /**
+     * 比赛提交
+     */
+    CONTEST("contest"),
+
+    /**
+     * 日常练习提交
+     */
+    PRACTICE("practice"),
+
+    /**
+     * 自测运行 (Run)，调用方同步等待结果
+     */
+    RUN("run");
+
+    private final String value;
+
+    JudgeLane(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * 按提交所属比赛选择通道
+     */
+    public static JudgeLane ofSubmit(Long contestId) {
+        return contestId != null && contestId > 0 ? CONTEST : PRACTICE;
+    }
+}
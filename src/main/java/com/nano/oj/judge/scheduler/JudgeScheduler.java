@@ -0,0 +1,254 @@
+package com.nano.oj.judge.scheduler;
+
+import com.nano.oj.common.ErrorCode;
+import com.nano.oj.exception.BusinessException;
+import com.nano.oj.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 判题调度器
+ * 固定数量的判题线程，替代 CompletableFuture.runAsync (公共 ForkJoinPool 不适合跑阻塞的 Docker 调用，且无上限、无排队可见性)。
+ * 排队规则：
+ * 1. 比赛 / 练习 / 自测三个通道分别排队，按权重轮流出队 (加权轮询)，某个通道为空时额度让给其他通道；
+ * 2. 同一通道内按用户轮转，每个用户每轮只出队一个任务，一个用户连交 50 次也不会堵住其他人。
+ */
+@Component
+@Slf4j
+public class JudgeScheduler {
+
+    // 队列满时建议客户端的重试间隔 (秒)
+    private static final long QUEUE_FULL_RETRY_AFTER_SECONDS = 5;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    // 同时判题的任务数 (每个任务至少占用一个 CPU 槽位，超出槽位数只会在沙箱内等待)
+    @Value("${judge.scheduler.concurrency:4}")
+    private int concurrency;
+
+    // 单个通道最多排队的任务数，超出直接拒绝
+    @Value("${judge.scheduler.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${judge.scheduler.weight.contest:6}")
+    private int contestWeight;
+
+    @Value("${judge.scheduler.weight.practice:3}")
+    private int practiceWeight;
+
+    @Value("${judge.scheduler.weight.run:2}")
+    private int runWeight;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    // 通道遍历顺序即优先顺序：比赛 -> 练习 -> 自测
+    private final Map<JudgeLane, LaneQueue> lanes = new EnumMap<>(JudgeLane.class);
+
+    private final Map<JudgeLane, Timer> waitTimers = new EnumMap<>(JudgeLane.class);
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private volatile boolean shutdown;
+
+    @PostConstruct
+    public void init() {
+        lanes.put(JudgeLane.CONTEST, new LaneQueue(contestWeight));
+        lanes.put(JudgeLane.PRACTICE, new LaneQueue(practiceWeight));
+        lanes.put(JudgeLane.RUN, new LaneQueue(runWeight));
+        for (Map.Entry<JudgeLane, LaneQueue> entry : lanes.entrySet()) {
+            String lane = entry.getKey().getValue();
+            Gauge.builder("judge.queue.depth", entry.getValue(), queue -> queue.size)
+                    .description("判题队列中等待的任务数")
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+            waitTimers.put(entry.getKey(), Timer.builder("judge.queue.wait")
+                    .description("判题任务从入队到开始执行的等待时间")
+                    .tag("lane", lane)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry));
+        }
+        Gauge.builder("judge.running", running, AtomicInteger::get)
+                .description("正在执行的判题任务数")
+                .register(meterRegistry);
+
+        for (int i = 0; i < concurrency; i++) {
+            Thread worker = new Thread(this::workLoop, "judge-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        log.info("🚦 判题调度器已启动, 并发数: {}, 通道权重: 比赛 {} / 练习 {} / 自测 {}",
+                concurrency, contestWeight, practiceWeight, runWeight);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shutdown = true;
+        workers.forEach(Thread::interrupt);
+        int dropped = queuedCount();
+        if (dropped > 0) {
+            log.warn("⚠️ 判题调度器关闭, 丢弃排队中的任务: {}", dropped);
+        }
+    }
+
+    /**
+     * 提交判题任务
+     *
+     * @param lane   所属通道
+     * @param userId 提交用户，用于同一通道内的用户轮转
+     * @param task   判题逻辑 (在判题线程中执行)
+     * @return 任务结果，任务抛出的异常会原样传递
+     */
+    public <T> CompletableFuture<T> submit(JudgeLane lane, long userId, Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        JudgeTask judgeTask = new JudgeTask(lane, userId, System.nanoTime(), () -> {
+            try {
+                future.complete(task.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        lock.lock();
+        try {
+            if (shutdown) {
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "判题服务正在关闭");
+            }
+            LaneQueue queue = lanes.get(lane);
+            if (queue.size >= queueCapacity) {
+                throw new TooManyRequestsException("判题队列已满，请稍后再试", QUEUE_FULL_RETRY_AFTER_SECONDS);
+            }
+            queue.offer(judgeTask);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        return future;
+    }
+
+    /**
+     * 全部通道排队中的任务数
+     */
+    public int queuedCount() {
+        return lanes.values().stream().mapToInt(queue -> queue.size).sum();
+    }
+
+    private void workLoop() {
+        while (!shutdown) {
+            JudgeTask task;
+            try {
+                task = take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            waitTimers.get(task.lane()).record(System.nanoTime() - task.enqueueNanos(), TimeUnit.NANOSECONDS);
+            running.incrementAndGet();
+            try {
+                task.action().run();
+            } catch (Throwable e) {
+                log.error("❌ 判题任务执行异常, 通道: {}, 用户: {}", task.lane(), task.userId(), e);
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+
+    private JudgeTask take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                JudgeTask task = pollNext();
+                if (task != null) {
+                    return task;
+                }
+                notEmpty.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 加权轮询：按优先顺序找还有额度的非空通道；所有非空通道额度都用完时重新发放额度
+     */
+    private JudgeTask pollNext() {
+        for (int round = 0; round < 2; round++) {
+            for (LaneQueue queue : lanes.values()) {
+                if (queue.size > 0 && queue.credit > 0) {
+                    queue.credit--;
+                    return queue.poll();
+                }
+            }
+            lanes.values().forEach(queue -> queue.credit = queue.weight);
+        }
+        return null;
+    }
+
+    private record JudgeTask(JudgeLane lane, long userId, long enqueueNanos, Runnable action) {
+    }
+
+    /**
+     * 单个通道的队列：用户 -> 该用户排队中的任务
+     * LinkedHashMap 的顺序即用户轮转顺序，出队后用户仍有任务则重新排到末尾
+     * 只在持有调度器锁时修改
+     */
+    private static class LaneQueue {
+
+        private final int weight;
+
+        private final LinkedHashMap<Long, ArrayDeque<JudgeTask>> userQueues = new LinkedHashMap<>();
+
+        private int credit;
+
+        // 供指标读取，不加锁
+        private volatile int size;
+
+        LaneQueue(int weight) {
+            this.weight = Math.max(1, weight);
+            this.credit = this.weight;
+        }
+
+        void offer(JudgeTask task) {
+            userQueues.computeIfAbsent(task.userId(), key -> new ArrayDeque<>()).add(task);
+            size++;
+        }
+
+        JudgeTask poll() {
+            Iterator<Map.Entry<Long, ArrayDeque<JudgeTask>>> iterator = userQueues.entrySet().iterator();
+            Map.Entry<Long, ArrayDeque<JudgeTask>> head = iterator.next();
+            iterator.remove();
+            ArrayDeque<JudgeTask> tasks = head.getValue();
+            JudgeTask task = tasks.poll();
+            if (!tasks.isEmpty()) {
+                userQueues.put(head.getKey(), tasks);
+            }
+            size--;
+            return task;
+        }
+    }
+}
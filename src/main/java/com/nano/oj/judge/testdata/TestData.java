@@ -0,0 +1,98 @@
+package com.nano.oj.judge.testdata;
+
+import lombok.Getter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 已校验的一份测试数据 (某题目的某个版本)
+ * 只持有文件引用，内容按需内存映射，不整体读入堆
+ */
+@Getter
+public class TestData {
+
+    /**
+     * 清单引用，格式 "<题目id>/<版本号>"，即 problem.testDataManifest
+     */
+    private final String reference;
+
+    private final String version;
+
+    private final List<File> inputFiles;
+
+    private final List<File> outputFiles;
+
+    /**
+     * 特判程序的语言，没有特判程序时为 null
+     */
+    private final String checkerLanguage;
+
+    /**
+     * 特判程序的源码文件，没有特判程序时为 null
+     */
+    private final File checkerFile;
+
+    TestData(String reference, String version, List<File> inputFiles, List<File> outputFiles,
+             String checkerLanguage, File checkerFile) {
+        this.reference = reference;
+        this.version = version;
+        this.inputFiles = inputFiles;
+        this.outputFiles = outputFiles;
+        this.checkerLanguage = checkerLanguage;
+        this.checkerFile = checkerFile;
+    }
+
+    public int size() {
+        return inputFiles.size();
+    }
+
+    public boolean hasChecker() {
+        return checkerFile != null;
+    }
+
+    /**
+     * 内存映射第 i 个用例的预期输出 (只读)
+     */
+    public MappedByteBuffer mapOutput(int index) {
+        return map(outputFiles.get(index));
+    }
+
+    /**
+     * 读取第 i 个用例的输入 (仅用于题面样例展示等小数据场景)
+     */
+    public String readInput(int index) {
+        return read(inputFiles.get(index));
+    }
+
+    /**
+     * 读取第 i 个用例的预期输出 (仅用于题面样例展示等小数据场景)
+     */
+    public String readOutput(int index) {
+        return read(outputFiles.get(index));
+    }
+
+    static MappedByteBuffer map(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // 映射在 channel 关闭后仍然有效
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String read(File file) {
+        try {
+            return Files.readString(file.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
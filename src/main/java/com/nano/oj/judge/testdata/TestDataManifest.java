@@ -0,0 +1,97 @@
+package com.nano.oj.judge.testdata;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 测试数据清单 (manifest.json)
+ * 一个题目的一个版本对应一个目录，目录下每个用例一个输入文件、一个输出文件
+ */
+@Data
+public class TestDataManifest {
+
+    /**
+     * 题目 id
+     */
+    private Long problemId;
+
+    /**
+     * 版本号 (全部用例内容的 sha256 前缀，内容不变则版本不变)
+     */
+    private String version;
+
+    /**
+     * 用例列表，按判题顺序排列
+     */
+    private List<CaseEntry> cases;
+
+    /**
+     * 特判程序 (可选)
+     */
+    private CheckerEntry checker;
+
+    /**
+     * 单个用例的文件信息
+     */
+    @Data
+    public static class CaseEntry {
+
+        /**
+         * 输入文件名
+         */
+        private String input;
+
+        /**
+         * 预期输出文件名
+         */
+        private String output;
+
+        /**
+         * 输入文件大小 (Byte)
+         */
+        private Long inputSize;
+
+        /**
+         * 输出文件大小 (Byte)
+         */
+        private Long outputSize;
+
+        /**
+         * 输入文件 sha256
+         */
+        private String inputSha256;
+
+        /**
+         * 输出文件 sha256
+         */
+        private String outputSha256;
+    }
+
+    /**
+     * 特判程序的源码文件信息
+     */
+    @Data
+    public static class CheckerEntry {
+
+        /**
+         * 语言：cpp / java
+         */
+        private String language;
+
+        /**
+         * 源码文件名
+         */
+        private String file;
+
+        /**
+         * 源码文件大小 (Byte)
+         */
+        private Long size;
+
+        /**
+         * 源码文件 sha256
+         */
+        private String sha256;
+    }
+}
@@ -0,0 +1,241 @@
+package com.nano.oj.judge.testdata;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.json.JSONUtil;
+import com.nano.oj.common.ErrorCode;
+import com.nano.oj.exception.BusinessException;
+import com.nano.oj.model.dto.problem.JudgeCase;
+import com.nano.oj.model.dto.problem.JudgeChecker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 测试数据存储 (本地磁盘，按版本存放)
+ * 目录结构：<root>/<题目id>/<版本号>/{manifest.json, input_<i>.txt, output_<i>.txt, [checker.cpp | Checker.java]}
+ * 题目表只保存清单引用 "<题目id>/<版本号>"，判题时按引用加载，文件直接交给沙箱，不再经过 JSON 解析。
+ * 版本号由内容计算得出，版本目录写入后不再修改，因此校验结果可以常驻缓存。
+ */
+@Component
+@Slf4j
+public class TestDataStore {
+
+    private static final String MANIFEST_FILE = "manifest.json";
+
+    // 特判程序支持的语言 -> 源码文件名
+    private static final Map<String, String> CHECKER_FILE_NAMES = Map.of("cpp", "checker.cpp", "java", "Checker.java");
+
+    private static final Pattern REFERENCE_PATTERN = Pattern.compile("\\d+/[0-9a-f]+");
+
+    @Value("${judge.test-data.root:${user.dir}/testData}")
+    private String rootPath;
+
+    // 每个题目保留的历史版本数 (正在判题的提交可能还在读旧版本)
+    @Value("${judge.test-data.keep-versions:3}")
+    private int keepVersions;
+
+    // 已校验过的版本：引用 -> 测试数据
+    private final Map<String, TestData> verified = new ConcurrentHashMap<>();
+
+    /**
+     * 保存一组用例，生成新版本
+     *
+     * @return 清单引用 "<题目id>/<版本号>"
+     */
+    public String save(long problemId, List<JudgeCase> judgeCaseList) {
+        return save(problemId, judgeCaseList, null);
+    }
+
+    /**
+     * 保存一组用例和特判程序，生成新版本 (特判程序参与版本号计算)
+     *
+     * @param checker 特判程序，为 null 时按普通题目比对输出
+     * @return 清单引用 "<题目id>/<版本号>"
+     */
+    public String save(long problemId, List<JudgeCase> judgeCaseList, JudgeChecker checker) {
+        if (judgeCaseList == null || judgeCaseList.isEmpty()) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "判题用例不能为空");
+        }
+        String checkerFileName = null;
+        byte[] checkerSource = null;
+        if (checker != null) {
+            checkerFileName = CHECKER_FILE_NAMES.get(checker.getLanguage());
+            if (checkerFileName == null || checker.getCode() == null || checker.getCode().isBlank()) {
+                throw new BusinessException(ErrorCode.PARAMS_ERROR, "特判程序只支持 cpp / java，且源码不能为空");
+            }
+            checkerSource = checker.getCode().getBytes(StandardCharsets.UTF_8);
+        }
+        List<byte[]> inputs = new ArrayList<>();
+        List<byte[]> outputs = new ArrayList<>();
+        StringBuilder digests = new StringBuilder();
+        for (JudgeCase judgeCase : judgeCaseList) {
+            byte[] input = nullToEmpty(judgeCase.getInput()).getBytes(StandardCharsets.UTF_8);
+            byte[] output = nullToEmpty(judgeCase.getOutput()).getBytes(StandardCharsets.UTF_8);
+            inputs.add(input);
+            outputs.add(output);
+            digests.append(DigestUtil.sha256Hex(input)).append(DigestUtil.sha256Hex(output));
+        }
+        if (checkerSource != null) {
+            digests.append(checker.getLanguage()).append(DigestUtil.sha256Hex(checkerSource));
+        }
+        String version = DigestUtil.sha256Hex(digests.toString()).substring(0, 16);
+        String reference = problemId + "/" + version;
+
+        File problemDir = new File(rootPath, String.valueOf(problemId));
+        File versionDir = new File(problemDir, version);
+        if (new File(versionDir, MANIFEST_FILE).exists()) {
+            return reference;
+        }
+
+        // 先写临时目录再原子改名，判题方不会看到写了一半的版本
+        File tempDir = new File(problemDir, ".tmp-" + UUID.randomUUID());
+        try {
+            List<TestDataManifest.CaseEntry> entries = new ArrayList<>();
+            for (int i = 0; i < inputs.size(); i++) {
+                TestDataManifest.CaseEntry entry = new TestDataManifest.CaseEntry();
+                entry.setInput("input_" + i + ".txt");
+                entry.setOutput("output_" + i + ".txt");
+                entry.setInputSize((long) inputs.get(i).length);
+                entry.setOutputSize((long) outputs.get(i).length);
+                entry.setInputSha256(DigestUtil.sha256Hex(inputs.get(i)));
+                entry.setOutputSha256(DigestUtil.sha256Hex(outputs.get(i)));
+                FileUtil.writeBytes(inputs.get(i), new File(tempDir, entry.getInput()));
+                FileUtil.writeBytes(outputs.get(i), new File(tempDir, entry.getOutput()));
+                entries.add(entry);
+            }
+            TestDataManifest manifest = new TestDataManifest();
+            manifest.setProblemId(problemId);
+            manifest.setVersion(version);
+            manifest.setCases(entries);
+            if (checkerSource != null) {
+                TestDataManifest.CheckerEntry checkerEntry = new TestDataManifest.CheckerEntry();
+                checkerEntry.setLanguage(checker.getLanguage());
+                checkerEntry.setFile(checkerFileName);
+                checkerEntry.setSize((long) checkerSource.length);
+                checkerEntry.setSha256(DigestUtil.sha256Hex(checkerSource));
+                FileUtil.writeBytes(checkerSource, new File(tempDir, checkerFileName));
+                manifest.setChecker(checkerEntry);
+            }
+            FileUtil.writeString(JSONUtil.toJsonPrettyStr(manifest), new File(tempDir, MANIFEST_FILE), StandardCharsets.UTF_8);
+            Files.move(tempDir.toPath(), versionDir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // 并发保存同一份内容时目标目录已存在，视为成功
+            if (!new File(versionDir, MANIFEST_FILE).exists()) {
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "保存测试数据失败");
+            }
+        } finally {
+            FileUtil.del(tempDir);
+        }
+        log.info("💾 测试数据已保存: {}, 用例数: {}, 特判: {}", reference, inputs.size(),
+                checker != null ? checker.getLanguage() : "无");
+        pruneOldVersions(problemDir);
+        return reference;
+    }
+
+    /**
+     * 按引用加载测试数据，首次加载时校验文件大小和 sha256
+     */
+    public TestData load(String reference) {
+        if (reference == null || !REFERENCE_PATTERN.matcher(reference).matches()) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "测试数据引用非法: " + reference);
+        }
+        return verified.computeIfAbsent(reference, this::loadAndVerify);
+    }
+
+    /**
+     * 读出全部用例 (仅供管理员编辑题目时回显)
+     */
+    public List<JudgeCase> readCases(String reference) {
+        TestData testData = load(reference);
+        List<JudgeCase> judgeCaseList = new ArrayList<>(testData.size());
+        for (int i = 0; i < testData.size(); i++) {
+            JudgeCase judgeCase = new JudgeCase();
+            judgeCase.setInput(testData.readInput(i));
+            judgeCase.setOutput(testData.readOutput(i));
+            judgeCaseList.add(judgeCase);
+        }
+        return judgeCaseList;
+    }
+
+    /**
+     * 读出特判程序 (仅供管理员编辑题目时回显)，没有特判程序时返回 null
+     */
+    public JudgeChecker readChecker(String reference) {
+        TestData testData = load(reference);
+        if (!testData.hasChecker()) {
+            return null;
+        }
+        JudgeChecker checker = new JudgeChecker();
+        checker.setLanguage(testData.getCheckerLanguage());
+        checker.setCode(FileUtil.readString(testData.getCheckerFile(), StandardCharsets.UTF_8));
+        return checker;
+    }
+
+    private TestData loadAndVerify(String reference) {
+        File versionDir = new File(rootPath, reference);
+        File manifestFile = new File(versionDir, MANIFEST_FILE);
+        if (!manifestFile.exists()) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "测试数据不存在: " + reference);
+        }
+        TestDataManifest manifest = JSONUtil.toBean(FileUtil.readString(manifestFile, StandardCharsets.UTF_8), TestDataManifest.class);
+        List<File> inputFiles = new ArrayList<>();
+        List<File> outputFiles = new ArrayList<>();
+        for (TestDataManifest.CaseEntry entry : manifest.getCases()) {
+            File input = new File(versionDir, entry.getInput());
+            File output = new File(versionDir, entry.getOutput());
+            verifyFile(reference, input, entry.getInputSize(), entry.getInputSha256());
+            verifyFile(reference, output, entry.getOutputSize(), entry.getOutputSha256());
+            inputFiles.add(input);
+            outputFiles.add(output);
+        }
+        TestDataManifest.CheckerEntry checkerEntry = manifest.getChecker();
+        File checkerFile = null;
+        if (checkerEntry != null) {
+            checkerFile = new File(versionDir, checkerEntry.getFile());
+            verifyFile(reference, checkerFile, checkerEntry.getSize(), checkerEntry.getSha256());
+        }
+        return new TestData(reference, manifest.getVersion(), List.copyOf(inputFiles), List.copyOf(outputFiles),
+                checkerEntry != null ? checkerEntry.getLanguage() : null, checkerFile);
+    }
+
+    private void verifyFile(String reference, File file, Long size, String sha256) {
+        if (!file.exists() || file.length() != size || !DigestUtil.sha256Hex(file).equals(sha256)) {
+            log.error("❌ 测试数据校验失败: {}, 文件: {}", reference, file.getName());
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "测试数据校验失败: " + reference);
+        }
+    }
+
+    /**
+     * 只保留最近的若干个版本
+     */
+    private void pruneOldVersions(File problemDir) {
+        File[] versions = problemDir.listFiles(file -> file.isDirectory() && !file.getName().startsWith(".tmp-"));
+        if (versions == null || versions.length <= keepVersions) {
+            return;
+        }
+        Arrays.sort(versions, Comparator.comparingLong(File::lastModified).reversed());
+        for (int i = keepVersions; i < versions.length; i++) {
+            verified.remove(problemDir.getName() + "/" + versions[i].getName());
+            FileUtil.del(versions[i]);
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
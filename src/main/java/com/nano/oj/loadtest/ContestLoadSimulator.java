@@ -0,0 +1,308 @@
+package com.nano.oj.loadtest;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.nano.oj.model.dto.contest.ContestApplyRequest;
+import com.nano.oj.model.dto.contest.ContestRankQueryRequest;
+import com.nano.oj.model.dto.questionsubmit.QuestionSubmitAddRequest;
+import com.nano.oj.model.dto.user.UserLoginRequest;
+import com.nano.oj.model.dto.user.UserRegisterRequest;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 比赛压测模拟器 (仅 loadtest profile 生效)
+ * 应用启动后，模拟 N 个用户通过真实的 HTTP 接口完成：注册 -> 登录 -> 查看比赛 -> 报名 -> 多次 (提交 + 刷排行榜)。
+ * 判题由 FakeCodeSandbox 完成，不需要 Docker；数据库、MQ 使用本地实例。
+ * 结束后按接口输出吞吐量、p50 / p99 延迟和 SQL 语句数，用于定位比赛场景的瓶颈。
+ * 比赛和题目需要事先在本地库中准备好 (比赛进行中、题目已配置测试数据)，通过 loadtest.contest-id / problem-ids 指定。
+ */
+@Component
+@Profile("loadtest")
+@Slf4j
+public class ContestLoadSimulator implements ApplicationRunner {
+
+    private static final String PASSWORD = "loadtest123";
+
+    @Resource
+    private Environment environment;
+
+    @Resource
+    private SqlCountInterceptor sqlCountInterceptor;
+
+    @Resource
+    private ConfigurableApplicationContext applicationContext;
+
+    @Value("${loadtest.enabled:true}")
+    private boolean enabled;
+
+    // 模拟的用户数
+    @Value("${loadtest.users:100}")
+    private int users;
+
+    // 同时在线 (并发执行) 的用户数
+    @Value("${loadtest.concurrency:50}")
+    private int concurrency;
+
+    @Value("${loadtest.contest-id:0}")
+    private long contestId;
+
+    // 比赛密码 (公开比赛留空)
+    @Value("${loadtest.contest-password:}")
+    private String contestPassword;
+
+    // 比赛题目 id，逗号分隔
+    @Value("${loadtest.problem-ids:}")
+    private String problemIds;
+
+    @Value("${loadtest.language:cpp}")
+    private String language;
+
+    @Value("${loadtest.submissions-per-user:5}")
+    private int submissionsPerUser;
+
+    // 每次提交后刷新排行榜的次数
+    @Value("${loadtest.rank-polls-per-submission:3}")
+    private int rankPollsPerSubmission;
+
+    // 用户两次操作之间的思考时间 (ms)，实际取 [0.5, 1.5] 倍
+    @Value("${loadtest.think-time-ms:500}")
+    private long thinkTimeMs;
+
+    // 随机种子，相同种子产生相同的操作序列和代码
+    @Value("${loadtest.seed:42}")
+    private long seed;
+
+    // 压测结束后退出应用
+    @Value("${loadtest.exit-on-finish:true}")
+    private boolean exitOnFinish;
+
+    // 接口 URI -> 统计
+    private final Map<String, EndpointStats> statsMap = new ConcurrentHashMap<>();
+
+    private String baseUrl;
+
+    private String contextPath;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!enabled) {
+            return;
+        }
+        List<Long> problemIdList = StrUtil.splitTrim(problemIds, ',').stream().map(Long::parseLong).toList();
+        if (contestId <= 0 || problemIdList.isEmpty()) {
+            log.error("❌ 压测未启动：请配置 loadtest.contest-id 和 loadtest.problem-ids");
+            return;
+        }
+        contextPath = environment.getProperty("server.servlet.context-path", "");
+        baseUrl = "http://localhost:" + environment.getProperty("local.server.port", "8888") + contextPath;
+        // 每次压测使用新的账号前缀，避免与上一轮注册的账号冲突
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        log.info("🚀 压测开始, 用户数: {}, 并发: {}, 比赛: {}, 题目: {}", users, concurrency, contestId, problemIdList);
+
+        sqlCountInterceptor.reset();
+        statsMap.clear();
+        ExecutorService userExecutor = Executors.newFixedThreadPool(concurrency);
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < users; i++) {
+            int userIndex = i;
+            userExecutor.execute(() -> {
+                try {
+                    runUser(runId, userIndex, problemIdList);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    log.warn("⚠️ 压测用户 {} 异常退出: {}", userIndex, e.getMessage());
+                }
+            });
+        }
+        userExecutor.shutdown();
+        userExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        report(System.nanoTime() - startNanos);
+
+        if (exitOnFinish) {
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+
+    private void runUser(String runId, int userIndex, List<Long> problemIdList) throws Exception {
+        Random random = new Random(seed + userIndex);
+        HttpClient client = HttpClient.newBuilder()
+                .cookieHandler(new CookieManager())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        String account = "lt" + runId + "_" + userIndex;
+
+        UserRegisterRequest registerRequest = new UserRegisterRequest();
+        registerRequest.setUserAccount(account);
+        registerRequest.setUserPassword(PASSWORD);
+        registerRequest.setCheckPassword(PASSWORD);
+        post(client, "/user/register", registerRequest);
+
+        UserLoginRequest loginRequest = new UserLoginRequest();
+        loginRequest.setUserAccount(account);
+        loginRequest.setUserPassword(PASSWORD);
+        if (!post(client, "/user/login", loginRequest)) {
+            return;
+        }
+
+        get(client, "/contest/get?id=" + contestId);
+        ContestApplyRequest applyRequest = new ContestApplyRequest();
+        applyRequest.setContestId(contestId);
+        applyRequest.setPassword(StrUtil.emptyToNull(contestPassword));
+        post(client, "/contest/apply", applyRequest);
+
+        ContestRankQueryRequest rankRequest = new ContestRankQueryRequest();
+        rankRequest.setContestId(contestId);
+        rankRequest.setCurrent(1);
+        rankRequest.setPageSize(20);
+        for (int s = 0; s < submissionsPerUser; s++) {
+            think(random);
+            QuestionSubmitAddRequest submitRequest = new QuestionSubmitAddRequest();
+            submitRequest.setProblemId(problemIdList.get(random.nextInt(problemIdList.size())));
+            submitRequest.setContestId(contestId);
+            submitRequest.setLanguage(language);
+            // 代码内容决定假沙箱的判题结果，带上用户和序号保证每份代码不同
+            submitRequest.setCode("// " + account + " #" + s + " " + random.nextLong()
+                    + "\n#include <cstdio>\nint main() { int a, b; scanf(\"%d%d\", &a, &b); printf(\"%d\", a + b); }\n");
+            post(client, "/problem_submit/", submitRequest);
+            for (int p = 0; p < rankPollsPerSubmission; p++) {
+                think(random);
+                post(client, "/contest/rank/list/page", rankRequest);
+            }
+        }
+    }
+
+    private void think(Random random) throws InterruptedException {
+        if (thinkTimeMs > 0) {
+            Thread.sleep(thinkTimeMs / 2 + (long) (random.nextDouble() * thinkTimeMs));
+        }
+    }
+
+    private boolean get(HttpClient client, String path) throws InterruptedException {
+        return send(client, path, HttpRequest.newBuilder(URI.create(baseUrl + path)).GET());
+    }
+
+    private boolean post(HttpClient client, String path, Object body) throws InterruptedException {
+        return send(client, path, HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(JSONUtil.toJsonStr(body))));
+    }
+
+    /**
+     * 发送请求并记录耗时；HTTP 状态码非 200 或业务码非 0 记为失败
+     */
+    private boolean send(HttpClient client, String path, HttpRequest.Builder builder) throws InterruptedException {
+        // 统计按 URI 归类 (去掉查询参数)，与 SQL 计数插件的 key 一致
+        String endpoint = contextPath + StrUtil.subBefore(path, "?", false);
+        EndpointStats stats = statsMap.computeIfAbsent(endpoint, key -> new EndpointStats());
+        long start = System.nanoTime();
+        boolean success;
+        try {
+            HttpResponse<String> response = client.send(builder.timeout(Duration.ofSeconds(60)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            success = response.statusCode() == 200 && isSuccessBody(response.body());
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            success = false;
+        }
+        stats.record(System.nanoTime() - start, success);
+        return success;
+    }
+
+    private static boolean isSuccessBody(String body) {
+        if (!JSONUtil.isTypeJSONObject(body)) {
+            return false;
+        }
+        JSONObject json = JSONUtil.parseObj(body);
+        return Integer.valueOf(0).equals(json.getInt("code"));
+    }
+
+    private void report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        Map<String, Long> sqlCounts = sqlCountInterceptor.snapshot();
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%n📊 压测报告 (耗时 %.1fs, 用户 %d)%n", seconds, users));
+        report.append(String.format("%-32s %8s %7s %9s %9s %9s %9s %9s %8s%n",
+                "endpoint", "count", "errors", "req/s", "p50(ms)", "p99(ms)", "max(ms)", "sql", "sql/req"));
+        long totalCount = 0;
+        for (Map.Entry<String, EndpointStats> entry : new TreeMap<>(statsMap).entrySet()) {
+            EndpointStats stats = entry.getValue();
+            List<Long> latencies = stats.sortedLatencies();
+            long count = latencies.size();
+            long sql = sqlCounts.getOrDefault(entry.getKey(), 0L);
+            totalCount += count;
+            report.append(String.format("%-32s %8d %7d %9.1f %9.1f %9.1f %9.1f %9d %8.1f%n",
+                    entry.getKey(), count, stats.errors.sum(), count / seconds,
+                    percentileMillis(latencies, 0.50), percentileMillis(latencies, 0.99),
+                    percentileMillis(latencies, 1.0), sql, count == 0 ? 0 : (double) sql / count));
+        }
+        report.append(String.format("%-32s %8d %7s %9.1f%n", "total", totalCount, "", totalCount / seconds));
+        // 判题、排行榜更新等异步链路的 SQL (压测结束时可能仍有判题在进行)
+        report.append(String.format("%-32s %s%n", "background sql",
+                sqlCounts.getOrDefault(SqlCountInterceptor.BACKGROUND, 0L)));
+        log.info(report.toString());
+    }
+
+    private static double percentileMillis(List<Long> sortedNanos, double percentile) {
+        if (sortedNanos.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.size()) - 1;
+        return sortedNanos.get(Math.max(0, index)) / 1e6;
+    }
+
+    /**
+     * 单个接口的统计
+     */
+    private static class EndpointStats {
+
+        private final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+
+        private final LongAdder errors = new LongAdder();
+
+        void record(long nanos, boolean success) {
+            latencies.add(nanos);
+            if (!success) {
+                errors.increment();
+            }
+        }
+
+        List<Long> sortedLatencies() {
+            List<Long> sorted;
+            synchronized (latencies) {
+                sorted = new ArrayList<>(latencies);
+            }
+            Collections.sort(sorted);
+            return sorted;
+        }
+    }
+}
@@ -20,6 +20,7 @@ public class ContestAddRequest implements Serializable {
     private Date endTime;
     private String pwd;   // 密码
     private Integer type; // 赛制
+    private Integer freezeMinutes; // 封榜时长 (分钟，仅 ACM)
 
     /**
      * 关联的题目 列表
@@ -0,0 +1,24 @@
+package com.nano.oj.model.dto.contest;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 我的排名查询请求
+ */
+@Data
+public class ContestRankAroundRequest implements Serializable {
+
+    /**
+     * 比赛 id
+     */
+    private Long contestId;
+
+    /**
+     * 前后各取多少条记录
+     */
+    private Integer window = 5;
+
+    private static final long serialVersionUID = 1L;
+}
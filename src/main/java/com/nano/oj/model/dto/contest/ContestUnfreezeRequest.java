@@ -0,0 +1,19 @@
+package com.nano.oj.model.dto.contest;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 揭榜请求
+ */
+@Data
+public class ContestUnfreezeRequest implements Serializable {
+
+    /**
+     * 比赛 id
+     */
+    private Long contestId;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -43,6 +43,11 @@ public class ContestUpdateRequest implements Serializable {
      */
     private Integer type;
 
+    /**
+     * 封榜时长 (分钟，仅 ACM)
+     */
+    private Integer freezeMinutes;
+
     /**
      * 状态
      */
@@ -0,0 +1,22 @@
+package com.nano.oj.model.dto.problem;
+
+import lombok.Data;
+
+/**
+ * 特判程序 (Special Judge)
+ * 题目存在多个正确答案时，由出题人提供的程序判定输出是否正确，随测试数据一起按版本保存。
+ * 调用方式：checker <输入文件> <选手输出文件> <标准答案文件>，退出码 0 为通过、1 / 2 为答案错误，其他为特判程序自身异常。
+ */
+@Data
+public class JudgeChecker {
+
+    /**
+     * 语言：cpp / java (java 的主类名为 Checker)
+     */
+    private String language;
+
+    /**
+     * 源码
+     */
+    private String code;
+}
@@ -22,4 +22,14 @@ public class JudgeConfig {
      * 堆栈限制 (KB)
      */
     private Long stackLimit;
-}
\ No newline at end of file
+
+    /**
+     * 输出比对模式：exact / token / line / float，不填时为 token (忽略空白差异)
+     */
+    private String compareMode;
+
+    /**
+     * 浮点比对 (float) 允许的绝对或相对误差，不填时为 1e-6
+     */
+    private Double epsilon;
+}
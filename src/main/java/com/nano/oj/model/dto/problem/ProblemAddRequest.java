@@ -43,6 +43,11 @@ public class ProblemAddRequest implements Serializable {
      */
     private Object judgeConfig;
 
+    /**
+     * 特判程序 (可选)，题目有多个正确答案时使用
+     */
+    private JudgeChecker checker;
+
     /**
      * 可见性
      */
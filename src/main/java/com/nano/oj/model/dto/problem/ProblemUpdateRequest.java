@@ -47,6 +47,11 @@ public class ProblemUpdateRequest implements Serializable {
      */
     private Object judgeConfig;
 
+    /**
+     * 特判程序：不传则保持不变，源码为空表示去掉特判
+     */
+    private JudgeChecker checker;
+
     /**
      * 可见性
      */
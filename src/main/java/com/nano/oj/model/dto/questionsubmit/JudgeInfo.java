@@ -24,10 +24,15 @@ public class JudgeInfo {
     private Long memory;
 
     /**
-     * 消耗时间 (ms)
+     * 消耗时间 (ms，CPU 时间)
      */
     private Long time;
 
+    /**
+     * 墙钟时间 (ms)
+     */
+    private Long wallTime;
+
     /**
      * 分数
      */
@@ -51,6 +51,16 @@ public class Contest implements Serializable {
      */
     private Integer type;
 
+    /**
+     * 封榜时长（分钟，仅 ACM）：比赛最后这段时间的通过情况对普通用户隐藏，空或 0 不封榜
+     */
+    private Integer freezeMinutes;
+
+    /**
+     * 揭榜时间（空表示尚未揭榜）
+     */
+    private Date unfreezeTime;
+
     /**
      * 创建者id
      */
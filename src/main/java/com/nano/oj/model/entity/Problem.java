@@ -1,6 +1,7 @@
 package com.nano.oj.model.entity;
 
 import com.baomidou.mybatisplus.annotation.*;
+import com.nano.oj.model.dto.problem.JudgeChecker;
 import lombok.Data;
 
 import java.io.Serial;
@@ -45,14 +46,26 @@ public class Problem implements Serializable {
 
     /**
      * 判题用例（json数组，包含输入和输出）
+     * 已迁移到测试数据存储的题目此字段为空，用例见 testDataManifest
      */
     private String judgeCase;
 
+    /**
+     * 测试数据清单引用 ("题目id/版本号"，指向 TestDataStore 中的一个版本)
+     */
+    private String testDataManifest;
+
     /**
      * 判题配置（json对象，包含时间限制、内存限制）
      */
     private String judgeConfig;
 
+    /**
+     * 特判程序 (不在题目表中，随测试数据按版本保存；创建 / 更新题目时传入，管理员查看题目时回显)
+     */
+    @TableField(exist = false)
+    private JudgeChecker checker;
+
     /**
      * 可见性（0-公开，1-私有/比赛专用）
      */
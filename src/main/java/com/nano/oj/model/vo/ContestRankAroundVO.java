@@ -0,0 +1,32 @@
+package com.nano.oj.model.vo;
+
+import com.nano.oj.model.entity.ContestRanking;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 我的排名及前后的排行记录
+ */
+@Data
+public class ContestRankAroundVO implements Serializable {
+
+    /**
+     * 我的名次 (并列同名次)，还没有排行记录时为 null
+     */
+    private Integer rank;
+
+    /**
+     * 榜单总人数
+     */
+    private Long total;
+
+    /**
+     * 我前后各 window 条排行记录 (含我自己，已填好名次)
+     */
+    private List<ContestRanking> records = new ArrayList<>();
+
+    private static final long serialVersionUID = 1L;
+}
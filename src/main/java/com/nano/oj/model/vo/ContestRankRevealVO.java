@@ -0,0 +1,41 @@
+package com.nano.oj.model.vo;
+
+import com.nano.oj.model.entity.ContestRanking;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 揭榜结果：封榜榜单 + 按揭晓顺序排列的每一步
+ * 前端从封榜榜单开始依次播放每一步即可得到最终榜单
+ */
+@Data
+public class ContestRankRevealVO implements Serializable {
+
+    /**
+     * 封榜时的榜单 (已填好名次)
+     */
+    private List<ContestRanking> frozenRecords = new ArrayList<>();
+
+    /**
+     * 揭晓顺序：每次揭晓当前排名最靠后、且还有待揭晓题目的用户的下一道题
+     */
+    private List<RevealStep> steps = new ArrayList<>();
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 单步揭晓
+     */
+    @Data
+    public static class RevealStep implements Serializable {
+        private Long userId;
+        private Long questionId;
+        private Integer fromPosition; // 揭晓前的位置 (1 基)
+        private Integer toPosition;   // 揭晓后的位置 (1 基)
+        private Integer solved;       // 揭晓后的解题数
+        private Long totalTime;       // 揭晓后的罚时
+    }
+}
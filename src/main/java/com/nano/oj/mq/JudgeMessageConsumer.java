@@ -9,12 +9,25 @@ import com.nano.oj.service.QuestionSubmitService;
 import com.rabbitmq.client.Channel;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.amqp.support.AmqpHeaders;
-import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
+
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * 判题完成消息消费者：更新比赛排行榜
+ * 批量消费：一次拉取最多 batch-size 条消息，批量查出提交和比赛，按比赛分组后每个 (比赛, 用户) 的排名记录只写一次，处理完整批确认。
+ */
 @Component
 @Slf4j
 public class JudgeMessageConsumer {
@@ -27,34 +40,78 @@ public class JudgeMessageConsumer {
     private ContestRankingService contestRankingService;
 
     // ✅ 监听注解：指定监听哪个队列
-    @RabbitListener(queues = {MqConfig.JUDGE_QUEUE}, ackMode = "MANUAL")
-    public void receiveMessage(String message, Channel channel, @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) {
-        log.info("收到 MQ 消息: {}", message);
-        long submitId = Long.parseLong(message);
-
+    @RabbitListener(queues = {MqConfig.JUDGE_QUEUE}, containerFactory = "rankingBatchListenerFactory")
+    public void receiveMessages(List<Message> messages, Channel channel) throws IOException {
+        if (messages.isEmpty()) {
+            return;
+        }
+        long lastDeliveryTag = messages.get(messages.size() - 1).getMessageProperties().getDeliveryTag();
         try {
-            // 1. 拿着 ID 查数据
-            QuestionSubmit submit = questionSubmitService.getById(submitId);
-
-            // 2. 只有比赛题目才处理
-            if (submit != null && submit.getContestId() != null && submit.getContestId() > 0) {
-                Contest contest = contestService.getById(submit.getContestId());
-                if (contest != null) {
-                    // 3. 更新排行榜 (调用你刚才写的那个 Service)
-                    contestRankingService.updateRanking(contest, submit);
-                }
+            handleBatch(messages);
+        } catch (Exception e) {
+            // 只有查询提交 / 比赛失败会走到这里：整批丢弃 (与逐条处理时失败即丢弃一致，防止死循环报错)
+            log.error("❌ 排行榜批量更新失败, 丢弃 {} 条消息", messages.size(), e);
+            channel.basicNack(lastDeliveryTag, true, false);
+            return;
+        }
+        // ✅ 确认整批消息 (multiple=true 确认到最后一条为止)
+        channel.basicAck(lastDeliveryTag, true);
+    }
+
+    private void handleBatch(List<Message> messages) {
+        // 1. 解析提交 id (重复投递的同一提交只算一次)
+        Set<Long> submitIds = new LinkedHashSet<>();
+        for (Message message : messages) {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            try {
+                submitIds.add(Long.parseLong(body.trim()));
+            } catch (NumberFormatException e) {
+                log.warn("⚠️ 无法解析的排行榜消息, 已丢弃: {}", body);
             }
+        }
+        if (submitIds.isEmpty()) {
+            return;
+        }
 
-            // 4. ✅ 确认消息 (告诉 MQ 我处理完了)
-            channel.basicAck(deliveryTag, false);
+        // 2. 批量查提交，只有比赛题目才处理 (保持消息顺序)
+        Map<Long, QuestionSubmit> submitMap = questionSubmitService.listByIds(submitIds).stream()
+                .collect(Collectors.toMap(QuestionSubmit::getId, Function.identity()));
+        List<QuestionSubmit> submits = submitIds.stream()
+                .map(submitMap::get)
+                .filter(submit -> submit != null && submit.getContestId() != null && submit.getContestId() > 0)
+                .toList();
+        if (submits.isEmpty()) {
+            return;
+        }
 
-        } catch (Exception e) {
-            // 处理失败，拒绝消息 (这里设为 false 表示丢弃，防止死循环报错)
+        // 3. 批量查比赛，按比赛分组
+        Map<Long, Contest> contests = contestService.listByIds(submits.stream().map(QuestionSubmit::getContestId)
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Contest::getId, Function.identity()));
+        Map<Long, List<QuestionSubmit>> submitsByContest = new LinkedHashMap<>();
+        for (QuestionSubmit submit : submits) {
+            if (contests.containsKey(submit.getContestId())) {
+                submitsByContest.computeIfAbsent(submit.getContestId(), key -> new ArrayList<>()).add(submit);
+            }
+        }
+
+        // 4. 每场比赛一个事务，批量累加后写库
+        for (Map.Entry<Long, List<QuestionSubmit>> entry : submitsByContest.entrySet()) {
+            Contest contest = contests.get(entry.getKey());
             try {
-                channel.basicNack(deliveryTag, false, false);
-            } catch (IOException ex) {
-                ex.printStackTrace();
+                int rows = contestRankingService.updateRankings(contest, entry.getValue());
+                log.info("🏆 排行榜已更新, 比赛: {}, 提交数: {}, 写入记录数: {}", contest.getId(), entry.getValue().size(), rows);
+            } catch (Exception e) {
+                // 整组失败时逐条重试，单条坏数据不影响同组其他提交
+                log.warn("⚠️ 排行榜批量更新失败, 逐条重试, 比赛: {}", contest.getId(), e);
+                for (QuestionSubmit submit : entry.getValue()) {
+                    try {
+                        contestRankingService.updateRanking(contest, submit);
+                    } catch (Exception ex) {
+                        log.error("❌ 排行榜更新失败, 已丢弃, 提交 id: {}", submit.getId(), ex);
+                    }
+                }
             }
         }
     }
-}
\ No newline at end of file
+}
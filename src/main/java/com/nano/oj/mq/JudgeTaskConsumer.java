@@ -0,0 +1,80 @@
+package com.nano.oj.mq;
+
+import com.nano.oj.common.ErrorCode;
+import com.nano.oj.config.MqConfig;
+import com.nano.oj.exception.BusinessException;
+import com.nano.oj.judge.JudgeService;
+import com.nano.oj.model.entity.QuestionSubmit;
+import com.nano.oj.service.QuestionSubmitService;
+import com.rabbitmq.client.Channel;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * 判题 worker：消费判题任务队列
+ * 判题结果写入数据库后才 ack，worker 中途退出时消息会重新投递给其他 worker。
+ * Web 节点可以关闭 (judge.worker.enabled=false)，单独以 worker profile 启动判题进程，判题能力与 Web 层独立扩容。
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "judge.worker.enabled", havingValue = "true", matchIfMissing = true)
+public class JudgeTaskConsumer {
+
+    @Resource
+    private JudgeService judgeService;
+
+    @Resource
+    private QuestionSubmitService questionSubmitService;
+
+    @RabbitListener(queues = {MqConfig.JUDGE_TASK_QUEUE}, containerFactory = "judgeTaskListenerFactory")
+    public void receiveTask(String message, Channel channel,
+                            @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag,
+                            @Header(AmqpHeaders.REDELIVERED) boolean redelivered) throws IOException {
+        long submitId = Long.parseLong(message);
+        try {
+            if (redelivered) {
+                // 重新投递且仍是“判题中”：上一个 worker 没来得及写结果就退出了，放回待判题重新判
+                boolean reset = questionSubmitService.lambdaUpdate()
+                        .eq(QuestionSubmit::getId, submitId)
+                        .eq(QuestionSubmit::getStatus, 1)
+                        .set(QuestionSubmit::getStatus, 0)
+                        .update();
+                if (reset) {
+                    log.warn("♻️ 判题任务重新投递, 重置状态后重判: {}", submitId);
+                }
+            }
+
+            judgeService.doJudge(submitId);
+            channel.basicAck(deliveryTag, false);
+        } catch (BusinessException e) {
+            if (e.getCode() == ErrorCode.OPERATION_ERROR.getCode()) {
+                // 没抢到：其他 worker 正在判或已出结果 (重复投递)
+                channel.basicAck(deliveryTag, false);
+                return;
+            }
+            fail(submitId, channel, deliveryTag, e);
+        } catch (Exception e) {
+            fail(submitId, channel, deliveryTag, e);
+        }
+    }
+
+    /**
+     * 判题失败：消息转入死信队列，提交标记为失败
+     */
+    private void fail(long submitId, Channel channel, long deliveryTag, Exception e) throws IOException {
+        log.error("❌ 判题失败, 提交 id: {}", submitId, e);
+        channel.basicNack(deliveryTag, false, false);
+        questionSubmitService.lambdaUpdate()
+                .eq(QuestionSubmit::getId, submitId)
+                .eq(QuestionSubmit::getStatus, 1)
+                .set(QuestionSubmit::getStatus, 3)
+                .update();
+    }
+}
@@ -0,0 +1,184 @@
+package com.nano.oj.ranking;
+
+import com.nano.oj.model.entity.ContestRanking;
+import org.springframework.beans.BeanUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 单场比赛的内存排行榜
+ * 用户 -> 排行记录 的索引 + 按 {@link RankingOrder} 排序的顺序统计树，分页和查名次都是 O(log n)。
+ * 存入的记录视为不可变：更新时整条替换，读出时返回副本。
+ */
+class ContestRankBoard {
+
+    private final long contestId;
+
+    private final int contestType;
+
+    // 比赛结束时间 (毫秒)，用于过期淘汰
+    private final long endTime;
+
+    private final RankTree<ContestRanking> tree;
+
+    private final Map<Long, ContestRanking> entries = new HashMap<>();
+
+    // 用户 -> 本进程最近一次更新的时间，全量同步时不用更旧的数据库快照覆盖
+    private final Map<Long, Long> localUpdateTimes = new HashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 榜单版本号，每次内容变化从全局序列取一个新值 (不同榜单的版本号也不会相同)，用于判断序列化快照是否过期
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private volatile long version = VERSIONS.incrementAndGet();
+
+    ContestRankBoard(long contestId, int contestType, long endTime) {
+        this.contestId = contestId;
+        this.contestType = contestType;
+        this.endTime = endTime;
+        this.tree = new RankTree<>(RankingOrder.order(contestType));
+    }
+
+    long getContestId() {
+        return contestId;
+    }
+
+    int getContestType() {
+        return contestType;
+    }
+
+    long getEndTime() {
+        return endTime;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * 本进程写入排行记录后更新
+     */
+    void update(ContestRanking ranking) {
+        lock.writeLock().lock();
+        try {
+            put(snapshot(ranking));
+            localUpdateTimes.put(ranking.getUserId(), System.currentTimeMillis());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 用数据库中的记录同步 (初次加载或定时同步其他节点写入的数据)
+     *
+     * @param snapshotTime 开始查询数据库的时间，此后本进程更新过的用户以内存为准
+     */
+    void merge(List<ContestRanking> rankings, long snapshotTime) {
+        lock.writeLock().lock();
+        try {
+            for (ContestRanking ranking : rankings) {
+                Long localTime = localUpdateTimes.get(ranking.getUserId());
+                if ((localTime == null || localTime < snapshotTime) && !ranking.equals(entries.get(ranking.getUserId()))) {
+                    put(snapshot(ranking));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return tree.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 取一页，返回的记录已填好名次
+     *
+     * @param offset 0 基偏移
+     */
+    List<ContestRanking> page(int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            return ranked(tree.range(offset, limit), offset);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 用户所在位置前后各 window 条记录 (含用户自己)，已填好名次；没有排行记录时返回 null
+     */
+    List<ContestRanking> around(long userId, int window) {
+        lock.readLock().lock();
+        try {
+            ContestRanking ranking = entries.get(userId);
+            if (ranking == null) {
+                return null;
+            }
+            int position = tree.rankOf(ranking);
+            int offset = Math.max(0, position - window);
+            return ranked(tree.range(offset, position - offset + window + 1), offset);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 复制一段连续记录并填写名次 (持有读锁时调用)
+     */
+    private List<ContestRanking> ranked(List<ContestRanking> records, int offset) {
+        List<ContestRanking> result = new ArrayList<>(records.size());
+        for (ContestRanking record : records) {
+            result.add(snapshot(record));
+        }
+        if (!result.isEmpty()) {
+            RankingOrder.fillRanks(result, contestType, offset, betterCount(records.get(0)) + 1);
+        }
+        return result;
+    }
+
+    /**
+     * 成绩严格更好的人数：用同成绩、用户 id 最小的探针记录查位置
+     */
+    private int betterCount(ContestRanking ranking) {
+        ContestRanking probe = new ContestRanking();
+        probe.setUserId(Long.MIN_VALUE);
+        probe.setSolved(ranking.getSolved());
+        probe.setTotalTime(ranking.getTotalTime());
+        probe.setTotalScore(ranking.getTotalScore());
+        return tree.rankOf(probe);
+    }
+
+    private void put(ContestRanking ranking) {
+        ContestRanking old = entries.put(ranking.getUserId(), ranking);
+        if (old != null) {
+            tree.remove(old);
+        }
+        tree.insert(ranking);
+        version = VERSIONS.incrementAndGet();
+    }
+
+    /**
+     * 浅拷贝一条记录 (单题详情另起一个 Map，调用方后续修改不会影响榜单)
+     */
+    private static ContestRanking snapshot(ContestRanking ranking) {
+        ContestRanking copy = new ContestRanking();
+        BeanUtils.copyProperties(ranking, copy);
+        if (ranking.getSubmissionInfo() != null) {
+            copy.setSubmissionInfo(new HashMap<>(ranking.getSubmissionInfo()));
+        }
+        copy.setRank(null);
+        return copy;
+    }
+}
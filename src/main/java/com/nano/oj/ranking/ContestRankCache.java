@@ -0,0 +1,223 @@
+package com.nano.oj.ranking;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.nano.oj.mapper.ContestRankingMapper;
+import com.nano.oj.model.entity.Contest;
+import com.nano.oj.model.entity.ContestRanking;
+import com.nano.oj.model.vo.ContestRankAroundVO;
+import com.nano.oj.model.vo.ContestRankRevealVO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 进行中比赛的内存排行榜
+ * 比赛进行中 (以及结束后的一段时间内) 排行榜分页、查名次直接走内存中的顺序统计树，不再每次 ORDER BY + OFFSET 查 contest_ranking；
+ * 表仍然是持久化的来源：榜单首次访问时从表加载，ContestRankingService 写表提交后同步更新内存。
+ * 多节点部署时排行更新只发生在消费到消息的节点，其他节点靠定时全量同步追上 (延迟不超过 resync-interval)。
+ * ACM 封榜期间普通用户读的是另一块封榜榜单 (见 {@link RankingFreeze})，不触碰实时榜单。
+ */
+@Component
+@Slf4j
+public class ContestRankCache {
+
+    @Resource
+    private ContestRankingMapper contestRankingMapper;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Value("${ranking.memory.enabled:true}")
+    private boolean enabled;
+
+    // 比赛结束后内存榜单继续保留的时间 (ms)，赛后查看终榜的请求集中在这段时间
+    @Value("${ranking.memory.retain-after-end:3600000}")
+    private long retainAfterEnd;
+
+    // 比赛 id -> 内存榜单
+    private final Map<Long, ContestRankBoard> boards = new ConcurrentHashMap<>();
+
+    // 比赛 id -> 封榜榜单 (封榜时从表中推导一次，之后不再更新)
+    private final Map<Long, FrozenBoard> frozenBoards = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("contest.rank.boards", boards, Map::size)
+                .description("内存中的比赛排行榜数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 该比赛的排行榜是否由内存提供 (封榜中的普通用户视角总是由内存中的封榜榜单提供)
+     *
+     * @param admin 是否管理员视角
+     */
+    public boolean isServing(Contest contest, boolean admin) {
+        if (contest == null || contest.getStartTime() == null || contest.getEndTime() == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if (!admin && RankingFreeze.isFrozen(contest, now)) {
+            return true;
+        }
+        return enabled && now >= contest.getStartTime().getTime() && now < contest.getEndTime().getTime() + retainAfterEnd;
+    }
+
+    /**
+     * 排行榜分页 (调用方先用 {@link #isServing} 判断)
+     */
+    public Page<ContestRanking> page(Contest contest, boolean admin, long current, long size) {
+        ContestRankBoard board = getBoard(contest, admin);
+        long offset = Math.max(0, (current - 1) * size);
+        Page<ContestRanking> page = new Page<>(current, size, board.size());
+        if (offset < page.getTotal()) {
+            page.setRecords(board.page((int) offset, (int) size));
+        }
+        return page;
+    }
+
+    /**
+     * 榜单版本号，内容变化后改变 (调用方先用 {@link #isServing} 判断)
+     */
+    public long version(Contest contest, boolean admin) {
+        return getBoard(contest, admin).getVersion();
+    }
+
+    /**
+     * 该比赛的榜单是否在内存中
+     */
+    public boolean isLoaded(long contestId) {
+        return boards.containsKey(contestId) || frozenBoards.containsKey(contestId);
+    }
+
+    /**
+     * 用户的名次及前后各 window 条记录 (调用方先用 {@link #isServing} 判断)
+     */
+    public ContestRankAroundVO around(Contest contest, boolean admin, long userId, int window) {
+        ContestRankBoard board = getBoard(contest, admin);
+        ContestRankAroundVO vo = new ContestRankAroundVO();
+        vo.setTotal((long) board.size());
+        List<ContestRanking> records = board.around(userId, window);
+        if (records != null) {
+            vo.setRecords(records);
+            records.stream()
+                    .filter(record -> record.getUserId() == userId)
+                    .findFirst()
+                    .ifPresent(record -> vo.setRank(record.getRank()));
+        }
+        return vo;
+    }
+
+    /**
+     * 计算揭榜顺序 (从表中读取实时记录)
+     *
+     * @param problemOrder 题目 id -> 题目在比赛中的次序
+     */
+    public ContestRankRevealVO reveal(Contest contest, Map<Long, Integer> problemOrder) {
+        return RankRevealer.reveal(loadRankings(contest.getId()), RankingFreeze.freezeStartSeconds(contest), problemOrder);
+    }
+
+    /**
+     * 揭榜后丢弃本进程的封榜榜单 (其他节点读到揭榜时间后不再使用封榜榜单，闲置后淘汰)
+     */
+    public void onUnfrozen(long contestId) {
+        frozenBoards.remove(contestId);
+    }
+
+    /**
+     * 排行记录写入数据库后调用：有事务时在提交后更新内存，回滚则不更新
+     */
+    public void onRankingSaved(Contest contest, ContestRanking ranking) {
+        ContestRankBoard board = boards.get(contest.getId());
+        if (board == null) {
+            // 榜单还没被访问过，首次访问时会从表加载
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    board.update(ranking);
+                }
+            });
+        } else {
+            board.update(ranking);
+        }
+    }
+
+    /**
+     * 定时从表同步 (其他节点写入的更新)，并淘汰已经过了保留期的榜单和闲置的封榜榜单
+     */
+    @Scheduled(fixedDelayString = "${ranking.memory.resync-interval:30000}")
+    public void resync() {
+        long now = System.currentTimeMillis();
+        for (ContestRankBoard board : boards.values()) {
+            if (now >= board.getEndTime() + retainAfterEnd) {
+                boards.remove(board.getContestId());
+                log.info("🗑️ 比赛内存排行榜已淘汰: {}", board.getContestId());
+                continue;
+            }
+            try {
+                board.merge(loadRankings(board.getContestId()), now);
+            } catch (Exception e) {
+                log.warn("⚠️ 比赛内存排行榜同步失败: {}", board.getContestId(), e);
+            }
+        }
+        frozenBoards.values().removeIf(frozen -> now - frozen.lastAccess >= retainAfterEnd);
+    }
+
+    private ContestRankBoard getBoard(Contest contest, boolean admin) {
+        if (!admin && RankingFreeze.isFrozen(contest, System.currentTimeMillis())) {
+            FrozenBoard frozen = frozenBoards.computeIfAbsent(contest.getId(), contestId -> {
+                long freezeStart = RankingFreeze.freezeStartSeconds(contest);
+                ContestRankBoard board = new ContestRankBoard(contestId, contest.getType(), contest.getEndTime().getTime());
+                board.merge(loadRankings(contestId).stream()
+                        .map(ranking -> RankingFreeze.project(ranking, freezeStart))
+                        .toList(), System.currentTimeMillis());
+                log.info("🧊 比赛封榜榜单已生成: {}, 人数: {}", contestId, board.size());
+                return new FrozenBoard(board);
+            });
+            frozen.lastAccess = System.currentTimeMillis();
+            return frozen.board;
+        }
+        return getBoard(contest);
+    }
+
+    private ContestRankBoard getBoard(Contest contest) {
+        return boards.computeIfAbsent(contest.getId(), contestId -> {
+            ContestRankBoard board = new ContestRankBoard(contestId, contest.getType(), contest.getEndTime().getTime());
+            long snapshotTime = System.currentTimeMillis();
+            board.merge(loadRankings(contestId), snapshotTime);
+            log.info("📊 比赛内存排行榜已加载: {}, 人数: {}", contestId, board.size());
+            return board;
+        });
+    }
+
+    private List<ContestRanking> loadRankings(long contestId) {
+        return contestRankingMapper.selectList(new LambdaQueryWrapper<ContestRanking>()
+                .eq(ContestRanking::getContestId, contestId));
+    }
+
+    private static class FrozenBoard {
+
+        private final ContestRankBoard board;
+
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        FrozenBoard(ContestRankBoard board) {
+            this.board = board;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.nano.oj.ranking;
+
+import com.nano.oj.model.entity.ContestRanking;
+import com.nano.oj.model.vo.ContestRankRevealVO;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 揭榜顺序计算 (滚榜)
+ * 从封榜榜单开始，每次取当前排名最靠后、且还有待揭晓题目的用户，按题目顺序揭晓该用户下一道封榜后通过的题，
+ * 揭晓后重新排序，直到没有待揭晓的题。两棵有序结构 (全体用户的顺序统计树 + 有待揭晓题的用户集合) 让每一步都是 O(log n)。
+ */
+class RankRevealer {
+
+    private RankRevealer() {
+    }
+
+    /**
+     * @param live         实时排行记录
+     * @param freezeStart  封榜时刻 (相对比赛开始的秒数)
+     * @param problemOrder 题目 id -> 题目在比赛中的次序，同一用户的待揭晓题按此顺序揭晓
+     */
+    static ContestRankRevealVO reveal(List<ContestRanking> live, long freezeStart, Map<Long, Integer> problemOrder) {
+        Comparator<ContestRanking> order = RankingOrder.order(0);
+        RankTree<ContestRanking> tree = new RankTree<>(order);
+        TreeSet<ContestRanking> withPending = new TreeSet<>(order);
+        Map<Long, Deque<Map.Entry<Long, ContestRanking.SubmissionInfo>>> pendingByUser = new HashMap<>();
+
+        List<ContestRanking> frozenRecords = new ArrayList<>(live.size());
+        for (ContestRanking ranking : live) {
+            ContestRanking frozen = RankingFreeze.project(ranking, freezeStart);
+            frozenRecords.add(frozen);
+            tree.insert(frozen);
+
+            List<Map.Entry<Long, ContestRanking.SubmissionInfo>> pending = new ArrayList<>();
+            if (ranking.getSubmissionInfo() != null) {
+                for (Map.Entry<String, ?> entry : ranking.getSubmissionInfo().entrySet()) {
+                    ContestRanking.SubmissionInfo info = RankingFreeze.toInfo(entry.getValue());
+                    if (RankingFreeze.isPending(info, freezeStart)) {
+                        pending.add(Map.entry(Long.parseLong(entry.getKey()), info));
+                    }
+                }
+            }
+            if (!pending.isEmpty()) {
+                pending.sort(Comparator.comparing(entry -> problemOrder.getOrDefault(entry.getKey(), Integer.MAX_VALUE)));
+                pendingByUser.put(frozen.getUserId(), new ArrayDeque<>(pending));
+                withPending.add(frozen);
+            }
+        }
+
+        ContestRankRevealVO vo = new ContestRankRevealVO();
+        frozenRecords.sort(order);
+        RankingOrder.fillRanks(frozenRecords, 0, 0, 1);
+        vo.setFrozenRecords(frozenRecords);
+
+        while (!withPending.isEmpty()) {
+            ContestRanking current = withPending.pollLast();
+            Deque<Map.Entry<Long, ContestRanking.SubmissionInfo>> pending = pendingByUser.get(current.getUserId());
+            Map.Entry<Long, ContestRanking.SubmissionInfo> problem = pending.poll();
+
+            int fromPosition = tree.rankOf(current) + 1;
+            tree.remove(current);
+            // 树中的记录不可变：揭晓后换一个新对象
+            ContestRanking next = new ContestRanking();
+            next.setUserId(current.getUserId());
+            next.setSolved(current.getSolved() + 1);
+            next.setTotalTime(current.getTotalTime() + RankingFreeze.penalty(problem.getValue()));
+            tree.insert(next);
+            if (!pending.isEmpty()) {
+                withPending.add(next);
+            }
+
+            ContestRankRevealVO.RevealStep step = new ContestRankRevealVO.RevealStep();
+            step.setUserId(next.getUserId());
+            step.setQuestionId(problem.getKey());
+            step.setFromPosition(fromPosition);
+            step.setToPosition(tree.rankOf(next) + 1);
+            step.setSolved(next.getSolved());
+            step.setTotalTime(next.getTotalTime());
+            vo.getSteps().add(step);
+        }
+        return vo;
+    }
+}
@@ -0,0 +1,159 @@
+package com.nano.oj.ranking;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 顺序统计树 (按子树大小增强的 Treap)
+ * 插入、删除、求名次、按名次取元素均为期望 O(log n)，取一页为 O(log n + 页大小)。
+ * 元素按比较器两两不同 (比较器需要有最终的唯一键，例如用户 id)。
+ * 非线程安全，由调用方加锁。
+ */
+class RankTree<T> {
+
+    private final Comparator<? super T> comparator;
+
+    private final SplittableRandom random = new SplittableRandom();
+
+    private Node<T> root;
+
+    RankTree(Comparator<? super T> comparator) {
+        this.comparator = comparator;
+    }
+
+    private static final class Node<T> {
+
+        private final T value;
+
+        private final int priority;
+
+        private int size = 1;
+
+        private Node<T> left;
+
+        private Node<T> right;
+
+        Node(T value, int priority) {
+            this.value = value;
+            this.priority = priority;
+        }
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    void insert(T value) {
+        Node<T>[] parts = split(root, value, false);
+        root = merge(merge(parts[0], new Node<>(value, random.nextInt())), parts[1]);
+    }
+
+    /**
+     * @return 是否删除了元素
+     */
+    boolean remove(T value) {
+        Node<T>[] lessAndRest = split(root, value, false);
+        Node<T>[] equalAndGreater = split(lessAndRest[1], value, true);
+        root = merge(lessAndRest[0], equalAndGreater[1]);
+        return equalAndGreater[0] != null;
+    }
+
+    /**
+     * 比 value 小的元素个数 (即 value 的 0 基名次)
+     */
+    int rankOf(T value) {
+        int rank = 0;
+        Node<T> node = root;
+        while (node != null) {
+            int cmp = comparator.compare(value, node.value);
+            if (cmp <= 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * 从第 offset 个 (0 基) 元素开始按顺序取至多 limit 个
+     */
+    List<T> range(int offset, int limit) {
+        List<T> result = new ArrayList<>(Math.max(0, Math.min(limit, size() - offset)));
+        collect(root, offset, limit, result);
+        return result;
+    }
+
+    private void collect(Node<T> node, int offset, int limit, List<T> result) {
+        if (node == null || result.size() >= limit) {
+            return;
+        }
+        int leftSize = size(node.left);
+        if (offset < leftSize) {
+            collect(node.left, offset, limit, result);
+        }
+        if (result.size() >= limit) {
+            return;
+        }
+        if (offset <= leftSize) {
+            result.add(node.value);
+        }
+        collect(node.right, Math.max(0, offset - leftSize - 1), limit, result);
+    }
+
+    /**
+     * 按 value 拆成两棵树
+     *
+     * @param inclusive false：左树为 < value 的元素；true：左树为 <= value 的元素
+     */
+    @SuppressWarnings("unchecked")
+    private Node<T>[] split(Node<T> node, T value, boolean inclusive) {
+        if (node == null) {
+            return new Node[]{null, null};
+        }
+        int cmp = comparator.compare(node.value, value);
+        if (cmp < 0 || (inclusive && cmp == 0)) {
+            Node<T>[] parts = split(node.right, value, inclusive);
+            node.right = parts[0];
+            update(node);
+            parts[0] = node;
+            return parts;
+        }
+        Node<T>[] parts = split(node.left, value, inclusive);
+        node.left = parts[1];
+        update(node);
+        parts[1] = node;
+        return parts;
+    }
+
+    /**
+     * 合并两棵树 (left 中的元素都小于 right 中的元素)
+     */
+    private Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static <T> int size(Node<T> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static <T> void update(Node<T> node) {
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+}
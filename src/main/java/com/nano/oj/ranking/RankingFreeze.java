@@ -0,0 +1,102 @@
+package com.nano.oj.ranking;
+
+import cn.hutool.json.JSONUtil;
+import com.nano.oj.model.entity.Contest;
+import com.nano.oj.model.entity.ContestRanking;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ACM 封榜规则
+ * 比赛最后 freezeMinutes 分钟进入封榜，直到管理员揭榜：普通用户看到的是封榜时刻的榜单，管理员看到实时榜单。
+ * 封榜后通过的题目 (单题通过时间 >= 封榜时刻) 在封榜榜单中按未通过处理，解题数和罚时都不计入；
+ * 排行记录里保存了每题的通过时间，所以封榜榜单可以随时从实时记录推导出来，重启或多节点下结果一致。
+ */
+public final class RankingFreeze {
+
+    private RankingFreeze() {
+    }
+
+    /**
+     * 当前是否处于封榜状态 (封榜开始后、揭榜前，比赛结束后仍然封榜)
+     */
+    public static boolean isFrozen(Contest contest, long now) {
+        if (contest == null || contest.getType() == null || contest.getType() != 0
+                || contest.getFreezeMinutes() == null || contest.getFreezeMinutes() <= 0
+                || contest.getUnfreezeTime() != null || contest.getEndTime() == null || contest.getStartTime() == null) {
+            return false;
+        }
+        return now >= contest.getEndTime().getTime() - contest.getFreezeMinutes() * 60_000L;
+    }
+
+    /**
+     * 封榜时刻相对比赛开始的秒数 (与单题通过时间同一基准)
+     */
+    public static long freezeStartSeconds(Contest contest) {
+        return (contest.getEndTime().getTime() - contest.getStartTime().getTime()) / 1000
+                - contest.getFreezeMinutes() * 60L;
+    }
+
+    /**
+     * 该题是否为封榜后通过 (封榜榜单中待揭晓)
+     */
+    public static boolean isPending(ContestRanking.SubmissionInfo info, long freezeStartSeconds) {
+        return info != null && info.getStatus() != null && info.getStatus() == 1
+                && info.getTime() != null && info.getTime() >= freezeStartSeconds;
+    }
+
+    /**
+     * 由实时记录推导封榜榜单中的记录 (返回新对象，不修改入参)
+     */
+    public static ContestRanking project(ContestRanking ranking, long freezeStartSeconds) {
+        ContestRanking frozen = new ContestRanking();
+        frozen.setId(ranking.getId());
+        frozen.setContestId(ranking.getContestId());
+        frozen.setUserId(ranking.getUserId());
+        frozen.setRealName(ranking.getRealName());
+        frozen.setUserAvatar(ranking.getUserAvatar());
+        frozen.setTotalScore(ranking.getTotalScore());
+        int solved = RankingOrder.solved(ranking);
+        long totalTime = RankingOrder.totalTime(ranking);
+        Map<String, ContestRanking.SubmissionInfo> submissionInfo = new HashMap<>();
+        if (ranking.getSubmissionInfo() != null) {
+            for (Map.Entry<String, ?> entry : ranking.getSubmissionInfo().entrySet()) {
+                ContestRanking.SubmissionInfo info = toInfo(entry.getValue());
+                if (isPending(info, freezeStartSeconds)) {
+                    solved--;
+                    totalTime -= penalty(info);
+                    info.setStatus(0);
+                    info.setTime(null);
+                }
+                submissionInfo.put(entry.getKey(), info);
+            }
+        }
+        frozen.setSolved(solved);
+        frozen.setTotalTime(totalTime);
+        frozen.setSubmissionInfo(submissionInfo);
+        return frozen;
+    }
+
+    /**
+     * 一道通过题计入的罚时：通过时间 + 错误次数 * 20 分钟
+     */
+    static long penalty(ContestRanking.SubmissionInfo info) {
+        return info.getTime() + (long) (info.getErrorNum() == null ? 0 : info.getErrorNum()) * 20 * 60;
+    }
+
+    /**
+     * 单题详情的副本 (从表中读出的值是 LinkedHashMap，先转成 Bean)
+     */
+    static ContestRanking.SubmissionInfo toInfo(Object raw) {
+        if (raw instanceof ContestRanking.SubmissionInfo info) {
+            ContestRanking.SubmissionInfo copy = new ContestRanking.SubmissionInfo();
+            copy.setStatus(info.getStatus());
+            copy.setScore(info.getScore());
+            copy.setTime(info.getTime());
+            copy.setErrorNum(info.getErrorNum());
+            return copy;
+        }
+        return JSONUtil.toBean(JSONUtil.toJsonStr(raw), ContestRanking.SubmissionInfo.class);
+    }
+}
@@ -0,0 +1,67 @@
+package com.nano.oj.ranking;
+
+import com.nano.oj.model.entity.ContestRanking;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 排行榜排序与名次规则 (内存榜单和数据库查询共用)
+ * 排序：ACM (type=0) 解题数降序、罚时升序；IOI / OI 总分降序；成绩相同按用户 id 升序，保证分页稳定。
+ * 名次：成绩相同名次相同，下一个不同成绩的名次跳过并列人数 (1, 2, 2, 4)。
+ */
+public final class RankingOrder {
+
+    private RankingOrder() {
+    }
+
+    /**
+     * 只比较成绩 (相同成绩返回 0)
+     */
+    public static Comparator<ContestRanking> scoreOrder(int contestType) {
+        if (contestType == 0) {
+            return Comparator.comparingInt((ContestRanking r) -> solved(r)).reversed()
+                    .thenComparingLong(RankingOrder::totalTime);
+        }
+        return Comparator.comparingInt((ContestRanking r) -> totalScore(r)).reversed();
+    }
+
+    /**
+     * 完整的排序规则：成绩，其次用户 id
+     */
+    public static Comparator<ContestRanking> order(int contestType) {
+        return scoreOrder(contestType).thenComparing(ContestRanking::getUserId);
+    }
+
+    /**
+     * 为按 {@link #order} 排好序的一段连续记录填写名次
+     *
+     * @param offset    第一条记录在整个榜单中的位置 (0 基)
+     * @param firstRank 第一条记录的名次 (1 + 成绩严格更好的人数)
+     */
+    public static void fillRanks(List<ContestRanking> records, int contestType, long offset, int firstRank) {
+        Comparator<ContestRanking> scoreOrder = scoreOrder(contestType);
+        for (int i = 0; i < records.size(); i++) {
+            ContestRanking record = records.get(i);
+            if (i == 0) {
+                record.setRank(firstRank);
+            } else if (scoreOrder.compare(records.get(i - 1), record) == 0) {
+                record.setRank(records.get(i - 1).getRank());
+            } else {
+                record.setRank((int) (offset + i + 1));
+            }
+        }
+    }
+
+    static int solved(ContestRanking ranking) {
+        return ranking.getSolved() == null ? 0 : ranking.getSolved();
+    }
+
+    static long totalTime(ContestRanking ranking) {
+        return ranking.getTotalTime() == null ? 0L : ranking.getTotalTime();
+    }
+
+    static int totalScore(ContestRanking ranking) {
+        return ranking.getTotalScore() == null ? 0 : ranking.getTotalScore();
+    }
+}
@@ -0,0 +1,153 @@
+package com.nano.oj.ranking;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nano.oj.common.ErrorCode;
+import com.nano.oj.common.ResultUtils;
+import com.nano.oj.exception.BusinessException;
+import com.nano.oj.model.entity.Contest;
+import com.nano.oj.model.entity.ContestRanking;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 排行榜分页响应的序列化快照
+ * 排行数据每秒最多变化几次，而每个排行榜请求都要把整页记录 (含 submissionInfo) 重新序列化一遍。
+ * 这里按 比赛 + 可见性 (管理员 / 普通用户) + 页大小 + 页号 缓存编码好的完整响应体，请求直接写出字节数组；
+ * 榜单变化后快照不立即重建，距上次重建不足 debounce 时继续返回旧快照 (合并短时间内的多次更新)，
+ * 同一快照同时只有一个请求在重建，其他请求返回旧快照。
+ */
+@Component
+@Slf4j
+public class ScoreboardSnapshotCache {
+
+    @Resource
+    private ContestRankCache contestRankCache;
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    // 同一快照两次重建的最小间隔 (ms)
+    @Value("${ranking.snapshot.debounce:500}")
+    private long debounceMillis;
+
+    // 超过该页大小的请求不缓存快照 (直接序列化)
+    @Value("${ranking.snapshot.max-page-size:100}")
+    private long maxPageSize;
+
+    // 每场比赛最多缓存的快照数，超出的页直接序列化
+    @Value("${ranking.snapshot.max-per-contest:200}")
+    private int maxPerContest;
+
+    // 比赛 id -> 快照
+    private final Map<Long, Map<SnapshotKey, SnapshotSlot>> snapshots = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * 排行榜分页的响应体 (调用方先用 {@link ContestRankCache#isServing} 判断)
+     *
+     * @param admin 是否管理员视角
+     */
+    public byte[] page(Contest contest, boolean admin, long current, long size) {
+        Map<SnapshotKey, SnapshotSlot> contestSnapshots = snapshots.computeIfAbsent(contest.getId(), id -> new ConcurrentHashMap<>());
+        SnapshotKey key = new SnapshotKey(admin, current, size);
+        SnapshotSlot slot = contestSnapshots.get(key);
+        if (slot == null) {
+            if (size > maxPageSize || contestSnapshots.size() >= maxPerContest) {
+                count("bypass");
+                return encode(contestRankCache.page(contest, admin, current, size));
+            }
+            slot = contestSnapshots.computeIfAbsent(key, k -> new SnapshotSlot());
+        }
+
+        Snapshot snapshot = slot.snapshot;
+        if (isFresh(snapshot, contest, admin)) {
+            count("hit");
+            return snapshot.body();
+        }
+        // 已有快照时不排队等待：别的请求正在重建就先返回旧快照
+        if (snapshot != null && !slot.rebuildLock.tryLock()) {
+            count("stale");
+            return snapshot.body();
+        }
+        if (snapshot == null) {
+            slot.rebuildLock.lock();
+        }
+        try {
+            snapshot = slot.snapshot;
+            if (isFresh(snapshot, contest, admin)) {
+                count("hit");
+                return snapshot.body();
+            }
+            // 先取版本号再序列化：序列化期间的更新会让下一个请求重建
+            long version = contestRankCache.version(contest, admin);
+            byte[] body = encode(contestRankCache.page(contest, admin, current, size));
+            slot.snapshot = new Snapshot(version, System.currentTimeMillis(), body);
+            count("rebuild");
+            return body;
+        } finally {
+            slot.rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * 编码成与接口返回一致的响应体
+     */
+    public byte[] encode(Page<ContestRanking> page) {
+        try {
+            return objectMapper.writeValueAsBytes(ResultUtils.success(page));
+        } catch (JsonProcessingException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "排行榜序列化失败");
+        }
+    }
+
+    /**
+     * 清理内存榜单已淘汰的比赛的快照
+     */
+    @Scheduled(fixedDelayString = "${ranking.memory.resync-interval:30000}")
+    public void evict() {
+        snapshots.keySet().removeIf(contestId -> !contestRankCache.isLoaded(contestId));
+    }
+
+    /**
+     * 快照与榜单版本一致，或距上次重建不足 debounce
+     */
+    private boolean isFresh(Snapshot snapshot, Contest contest, boolean admin) {
+        return snapshot != null && (System.currentTimeMillis() - snapshot.builtAt() < debounceMillis
+                || snapshot.version() == contestRankCache.version(contest, admin));
+    }
+
+    private void count(String result) {
+        counters.computeIfAbsent(result, key -> Counter.builder("contest.rank.snapshot")
+                .description("排行榜快照请求数")
+                .tag("result", result)
+                .register(meterRegistry)).increment();
+    }
+
+    private record SnapshotKey(boolean admin, long current, long size) {
+    }
+
+    private record Snapshot(long version, long builtAt, byte[] body) {
+    }
+
+    private static class SnapshotSlot {
+
+        private final ReentrantLock rebuildLock = new ReentrantLock();
+
+        private volatile Snapshot snapshot;
+    }
+}
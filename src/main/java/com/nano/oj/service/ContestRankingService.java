@@ -5,6 +5,8 @@ import com.nano.oj.model.entity.Contest;
 import com.nano.oj.model.entity.ContestRanking;
 import com.nano.oj.model.entity.QuestionSubmit;
 
+import java.util.List;
+
 /**
  * 比赛排行榜服务接口
  */
@@ -15,4 +17,12 @@ public interface ContestRankingService extends IService<ContestRanking> {
      * @param questionSubmit 提交记录（包含判题结果、分数等）
      */
     boolean updateRanking(Contest contest, QuestionSubmit questionSubmit);
+
+    /**
+     * 批量更新排行榜：同一比赛的一批提交按顺序在内存中累加，每个用户的排名记录只读写一次
+     * @param contest 比赛信息
+     * @param questionSubmits 该比赛的提交记录 (按判题完成顺序)
+     * @return 写入的排名记录数
+     */
+    int updateRankings(Contest contest, List<QuestionSubmit> questionSubmits);
 }
\ No newline at end of file
@@ -8,8 +8,9 @@ import com.nano.oj.model.dto.contest.ContestApplyRequest;
 import com.nano.oj.model.dto.contest.ContestQueryRequest;
 import com.nano.oj.model.dto.contest.ContestUpdateRequest;
 import com.nano.oj.model.entity.Contest;
-import com.nano.oj.model.entity.ContestRanking;
 import com.nano.oj.model.entity.User;
+import com.nano.oj.model.vo.ContestRankAroundVO;
+import com.nano.oj.model.vo.ContestRankRevealVO;
 import com.nano.oj.model.vo.ContestVO;
 
 import java.util.List;
@@ -51,5 +52,18 @@ public interface ContestService extends IService<Contest> {
      */
     void cancelApply(ContestApplyRequest contestApplyRequest, User loginUser);
 
-    Page<ContestRanking> getContestRank(Long contestId, long current, long size);
+    /**
+     * 排行榜分页，返回编码好的响应体 (进行中的比赛直接返回序列化快照)
+     */
+    byte[] getContestRankJson(Long contestId, long current, long size);
+
+    /**
+     * 我的排名及前后各 window 条排行记录
+     */
+    ContestRankAroundVO getMyContestRank(Long contestId, int window, User loginUser);
+
+    /**
+     * 揭榜 (ACM 封榜的比赛结束后)，返回封榜榜单和揭晓顺序
+     */
+    ContestRankRevealVO unfreezeContestRank(long contestId);
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.nano.oj.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.nano.oj.judge.testdata.TestData;
 import com.nano.oj.model.entity.Problem;
 import com.nano.oj.model.vo.ProblemVO;
 import jakarta.servlet.http.HttpServletRequest;
@@ -47,4 +48,13 @@ public interface ProblemService extends IService<Problem> {
      * @return
      */
     ProblemVO getProblemVO(Problem problem, HttpServletRequest request);
+
+    /**
+     * 获取题目的测试数据
+     * 还在用 judgeCase JSON 的老题目会在这里迁移到测试数据存储
+     *
+     * @param problem 题目实体
+     * @return 测试数据
+     */
+    TestData getTestData(Problem problem);
 }
\ No newline at end of file
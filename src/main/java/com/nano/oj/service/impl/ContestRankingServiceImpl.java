@@ -2,9 +2,12 @@ package com.nano.oj.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.nano.oj.common.ErrorCode;
+import com.nano.oj.exception.BusinessException;
 import com.nano.oj.mapper.ContestProblemMapper;
 import com.nano.oj.mapper.ContestRankingMapper;
 import com.nano.oj.model.entity.*;
+import com.nano.oj.ranking.ContestRankCache;
 import com.nano.oj.service.ContestProblemService;
 import com.nano.oj.service.ContestRankingService;
 import com.nano.oj.service.UserService;
@@ -15,8 +18,12 @@ import org.springframework.transaction.annotation.Transactional;
 import cn.hutool.json.JSONUtil;
 import com.nano.oj.model.dto.questionsubmit.JudgeInfo ;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * 比赛排行榜服务实现类
@@ -36,36 +43,99 @@ public class ContestRankingServiceImpl extends ServiceImpl<ContestRankingMapper,
     @Resource
     private ContestProblemMapper contestProblemMapper;
 
+    @Resource
+    private ContestRankCache contestRankCache;
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public boolean updateRanking(Contest contest, QuestionSubmit submit) {
-        Long userId = submit.getUserId();
-        Long questionId = submit.getQuestionId();
+        return updateRankings(contest, List.of(submit)) > 0;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int updateRankings(Contest contest, List<QuestionSubmit> submits) {
+        if (submits.isEmpty()) {
+            return 0;
+        }
         Long contestId = contest.getId();
+        Set<Long> userIds = submits.stream().map(QuestionSubmit::getUserId).collect(Collectors.toSet());
+        Set<Long> questionIds = submits.stream().map(QuestionSubmit::getQuestionId).collect(Collectors.toSet());
         // -------------------------------------------------------
-        // 1. 查询该用户在当前比赛的排名记录
+        // 1. 一次查出这批提交涉及的所有用户在当前比赛的排名记录
         // -------------------------------------------------------
-        LambdaQueryWrapper<ContestRanking> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(ContestRanking::getContestId, contestId);
-        wrapper.eq(ContestRanking::getUserId, userId);
-        ContestRanking ranking = this.getOne(wrapper);
-        // 2. 如果是该用户第一次提交，初始化一条新记录
-        if (ranking == null) {
-            ranking = new ContestRanking();
-            ranking.setContestId(contestId);
-            ranking.setUserId(userId);
-            ranking.setSolved(0);
-            ranking.setTotalTime(0L);
-            ranking.setTotalScore(0);
-            ranking.setSubmissionInfo(new HashMap<>());
-
-            // 查用户信息(头像、昵称)存入冗余字段，避免列表查询时联表
-            User user = userService.getById(userId);
-            if (user != null) {
-                ranking.setRealName(user.getUserName());
-                ranking.setUserAvatar(user.getUserAvatar());
+        Map<Long, ContestRanking> rankings = new HashMap<>();
+        for (ContestRanking ranking : this.list(new LambdaQueryWrapper<ContestRanking>()
+                .eq(ContestRanking::getContestId, contestId)
+                .in(ContestRanking::getUserId, userIds))) {
+            rankings.put(ranking.getUserId(), ranking);
+        }
+        // 2. 第一次提交的用户初始化新记录，查用户信息(头像、昵称)存入冗余字段，避免列表查询时联表
+        List<Long> newUserIds = userIds.stream().filter(userId -> !rankings.containsKey(userId)).toList();
+        if (!newUserIds.isEmpty()) {
+            Map<Long, User> users = userService.listByIds(newUserIds).stream()
+                    .collect(Collectors.toMap(User::getId, user -> user));
+            for (Long userId : newUserIds) {
+                ContestRanking ranking = new ContestRanking();
+                ranking.setContestId(contestId);
+                ranking.setUserId(userId);
+                ranking.setSolved(0);
+                ranking.setTotalTime(0L);
+                ranking.setTotalScore(0);
+                ranking.setSubmissionInfo(new HashMap<>());
+                User user = users.get(userId);
+                if (user != null) {
+                    ranking.setRealName(user.getUserName());
+                    ranking.setUserAvatar(user.getUserAvatar());
+                }
+                rankings.put(userId, ranking);
             }
         }
+        // 3. 查比赛配置的题目分数 (IOI 和 OI 都需要)
+        Map<Long, Integer> contestScores = new HashMap<>();
+        for (ContestProblem contestProblem : contestProblemService.list(new LambdaQueryWrapper<ContestProblem>()
+                .eq(ContestProblem::getContestId, contestId)
+                .in(ContestProblem::getQuestionId, questionIds)
+                .select(ContestProblem::getQuestionId, ContestProblem::getScore))) {
+            if (contestProblem.getScore() != null) {
+                contestScores.put(contestProblem.getQuestionId(), contestProblem.getScore());
+            }
+        }
+
+        // -------------------------------------------------------
+        // 4. 按提交顺序在内存中依次累加，每条排名记录只写一次
+        // -------------------------------------------------------
+        for (QuestionSubmit submit : submits) {
+            applySubmission(contest, rankings.get(submit.getUserId()), submit, contestScores.get(submit.getQuestionId()));
+        }
+
+        // -------------------------------------------------------
+        // 5. 保存落库 (新记录批量插入，已有记录批量按 id 更新)
+        // -------------------------------------------------------
+        List<ContestRanking> inserts = new ArrayList<>();
+        List<ContestRanking> updates = new ArrayList<>();
+        for (ContestRanking ranking : rankings.values()) {
+            (ranking.getId() == null ? inserts : updates).add(ranking);
+        }
+        boolean saved = (inserts.isEmpty() || this.saveBatch(inserts))
+                && (updates.isEmpty() || this.updateBatchById(updates));
+        if (!saved) {
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "排行榜更新失败");
+        }
+        // 事务提交后同步到内存排行榜
+        for (ContestRanking ranking : rankings.values()) {
+            contestRankCache.onRankingSaved(contest, ranking);
+        }
+        return rankings.size();
+    }
+
+    /**
+     * 把一次提交的结果累加到排名记录上 (只改内存中的对象)
+     *
+     * @param contestScore 比赛中为该题配置的分数，没有配置时为 null
+     */
+    private void applySubmission(Contest contest, ContestRanking ranking, QuestionSubmit submit, Integer contestScore) {
+        Long questionId = submit.getQuestionId();
         Map<String, ContestRanking.SubmissionInfo> submissionInfoMap = ranking.getSubmissionInfo();
 
         if (submissionInfoMap == null) {
@@ -97,20 +167,14 @@ public class ContestRankingServiceImpl extends ServiceImpl<ContestRankingMapper,
         JudgeInfo judgeInfo = JSONUtil.toBean(submit.getJudgeInfo(), JudgeInfo.class);
         boolean isAccepted = judgeInfo != null && "Accepted".equals(judgeInfo.getMessage());
 
-        // 🟢【通用逻辑】：查询当前题目的配置满分 (IOI 和 OI 都需要)
+        // 🟢【通用逻辑】：当前题目的配置满分 (IOI 和 OI 都需要)
         int problemMaxScore = 0;
         if (submit.getScore() != null) {
             problemMaxScore = submit.getScore(); // 如果submit自带了分数(判题机算的)
         }
-        // 查比赛配置的分数覆盖
-        ContestProblem contestProblem = contestProblemService.getOne(
-                new LambdaQueryWrapper<ContestProblem>()
-                        .eq(ContestProblem::getContestId, contestId)
-                        .eq(ContestProblem::getQuestionId, questionId)
-                        .select(ContestProblem::getScore)
-        );
-        if (contestProblem != null && contestProblem.getScore() != null) {
-            problemMaxScore = contestProblem.getScore();
+        // 比赛配置的分数覆盖
+        if (contestScore != null) {
+            problemMaxScore = contestScore;
         }
         // -------------------------------------------------------
         // 5. 根据赛制分别处理
@@ -205,13 +269,7 @@ public class ContestRankingServiceImpl extends ServiceImpl<ContestRankingMapper,
             ranking.setTotalScore(oldTotal - oldScore + currentScore);
         }
 
-        // -------------------------------------------------------
-        // 6. 保存落库
-        // -------------------------------------------------------
         submissionInfoMap.put(key, problemInfo);
         ranking.setSubmissionInfo(submissionInfoMap);
-
-        // Mybatis-Plus 自动判断是插入还是更新
-        return this.saveOrUpdate(ranking);
     }
-}
\ No newline at end of file
+}
@@ -15,8 +15,14 @@ import com.nano.oj.model.dto.contest.ContestAddRequest;
 import com.nano.oj.model.dto.contest.ContestApplyRequest;
 import com.nano.oj.model.dto.contest.ContestUpdateRequest;
 import com.nano.oj.model.entity.*;
+import com.nano.oj.model.vo.ContestRankAroundVO;
+import com.nano.oj.model.vo.ContestRankRevealVO;
 import com.nano.oj.model.vo.ContestVO;
 import com.nano.oj.model.vo.ProblemVO;
+import com.nano.oj.ranking.ContestRankCache;
+import com.nano.oj.ranking.RankingFreeze;
+import com.nano.oj.ranking.RankingOrder;
+import com.nano.oj.ranking.ScoreboardSnapshotCache;
 import com.nano.oj.service.ContestService;
 import com.nano.oj.service.ProblemService;
 import com.nano.oj.service.UserService;
@@ -57,6 +63,12 @@ public class ContestServiceImpl extends ServiceImpl<ContestMapper, Contest> impl
     @Resource
     private ContestRankingService contestRankingService;
 
+    @Resource
+    private ContestRankCache contestRankCache;
+
+    @Resource
+    private ScoreboardSnapshotCache scoreboardSnapshotCache;
+
     /**
      * 创建比赛
      */
@@ -439,11 +451,109 @@ public class ContestServiceImpl extends ServiceImpl<ContestMapper, Contest> impl
 
 
     @Override
-    public Page<ContestRanking> getContestRank(Long contestId, long current, long size) {
+    public byte[] getContestRankJson(Long contestId, long current, long size) {
+        Contest contest = this.getById(contestId);
+        if (contest == null) throw new BusinessException(ErrorCode.NOT_FOUND_ERROR);
+
+        if (isRankHidden(contest)) {
+            return scoreboardSnapshotCache.encode(new Page<>(current, size));
+        }
+
+        // 内存排行榜直接返回序列化好的快照 (ACM 封榜中的普通用户读封榜榜单)
+        boolean isAdmin = userService.isAdmin(UserHolder.getUser());
+        if (contestRankCache.isServing(contest, isAdmin)) {
+            return scoreboardSnapshotCache.page(contest, isAdmin, current, size);
+        }
+        return scoreboardSnapshotCache.encode(queryRankPage(contest, current, size));
+    }
+
+    /**
+     * 从表中分页查询排行榜
+     */
+    private Page<ContestRanking> queryRankPage(Contest contest, long current, long size) {
+        Page<ContestRanking> page = contestRankingService.page(new Page<>(current, size), rankQuery(contest));
+
+        // 填充名次：第一条按成绩更好的人数计算，之后成绩相同的并列
+        List<ContestRanking> records = page.getRecords();
+        if (!records.isEmpty()) {
+            RankingOrder.fillRanks(records, contest.getType(), (current - 1) * size,
+                    (int) countBetter(contest, records.get(0)) + 1);
+        }
+        return page;
+    }
+
+    @Override
+    public ContestRankAroundVO getMyContestRank(Long contestId, int window, User loginUser) {
+        Contest contest = this.getById(contestId);
+        if (contest == null) throw new BusinessException(ErrorCode.NOT_FOUND_ERROR);
+
+        if (isRankHidden(contest)) {
+            return new ContestRankAroundVO();
+        }
+
+        boolean isAdmin = userService.isAdmin(loginUser);
+        if (contestRankCache.isServing(contest, isAdmin)) {
+            return contestRankCache.around(contest, isAdmin, loginUser.getId(), window);
+        }
+
+        // 不在内存中的比赛：按索引列计数定位，再取前后一段
+        ContestRankAroundVO vo = new ContestRankAroundVO();
+        vo.setTotal(contestRankingService.count(new QueryWrapper<ContestRanking>().eq("contest_id", contestId)));
+        ContestRanking mine = contestRankingService.getOne(new QueryWrapper<ContestRanking>()
+                .eq("contest_id", contestId)
+                .eq("user_id", loginUser.getId()));
+        if (mine == null) {
+            return vo;
+        }
+        long better = countBetter(contest, mine);
+        long position = better + contestRankingService.count(scoreEquals(contest, mine).lt("user_id", mine.getUserId()));
+        long offset = Math.max(0, position - window);
+        List<ContestRanking> records = contestRankingService.list(rankQuery(contest)
+                .last("LIMIT " + offset + ", " + (position - offset + window + 1)));
+        if (!records.isEmpty()) {
+            RankingOrder.fillRanks(records, contest.getType(), offset, (int) countBetter(contest, records.get(0)) + 1);
+        }
+        vo.setRank((int) better + 1);
+        vo.setRecords(records);
+        return vo;
+    }
+
+    @Override
+    public ContestRankRevealVO unfreezeContestRank(long contestId) {
         Contest contest = this.getById(contestId);
         if (contest == null) throw new BusinessException(ErrorCode.NOT_FOUND_ERROR);
 
-        // OI 赛制封榜逻辑 (仅针对 Type=2)
+        long now = System.currentTimeMillis();
+        if (!RankingFreeze.isFrozen(contest, now)) {
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "比赛未封榜或已揭榜");
+        }
+        if (now < contest.getEndTime().getTime()) {
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "比赛尚未结束，不能揭榜");
+        }
+
+        // 同一用户的待揭晓题按比赛中的题目次序揭晓
+        Map<Long, Integer> problemOrder = contestProblemMapper.selectList(new LambdaQueryWrapper<ContestProblem>()
+                        .eq(ContestProblem::getContestId, contestId))
+                .stream()
+                .filter(cp -> cp.getDisplayId() != null)
+                .collect(Collectors.toMap(ContestProblem::getQuestionId, ContestProblem::getDisplayId, (a, b) -> a));
+        ContestRankRevealVO revealVO = contestRankCache.reveal(contest, problemOrder);
+
+        Contest update = new Contest();
+        update.setId(contestId);
+        update.setUnfreezeTime(new Date(now));
+        if (!this.updateById(update)) {
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "揭榜失败");
+        }
+        contestRankCache.onUnfrozen(contestId);
+        log.info("🎉 比赛已揭榜: {}, 揭晓题数: {}", contestId, revealVO.getSteps().size());
+        return revealVO;
+    }
+
+    /**
+     * OI 赛制进行中，普通用户看不了榜 (仅针对 Type=2)
+     */
+    private boolean isRankHidden(Contest contest) {
         boolean isOi = (contest.getType() == 2);
         long now = System.currentTimeMillis();
         boolean isRunning = contest.getStatus() == 1;
@@ -452,21 +562,16 @@ public class ContestServiceImpl extends ServiceImpl<ContestMapper, Contest> impl
             long end = contest.getEndTime().getTime();
             isRunning = (now >= start && now < end); // 只要在时间范围内，就是进行中
         }
-
-        // 获取当前用户并判断是否管理员 (伪代码)
         User loginUser = UserHolder.getUser();
-        boolean isAdmin = userService.isAdmin(loginUser);
-
-        if (isOi && isRunning && !isAdmin) {
-            // OI赛制进行中，普通用户看不了榜
-            return new Page<>(current, size);
-        }
+        return isOi && isRunning && !userService.isAdmin(loginUser);
+    }
 
-        // 构建查询条件
+    /**
+     * 按赛制排序的排行榜查询 (规则见 {@link RankingOrder}，利用数据库索引)
+     */
+    private QueryWrapper<ContestRanking> rankQuery(Contest contest) {
         QueryWrapper<ContestRanking> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("contest_id", contestId);
-
-        // 根据赛制决定排序规则 (利用数据库索引)
+        queryWrapper.eq("contest_id", contest.getId());
         if (contest.getType() == 0) {
             // ACM: 解题数降序，罚时升序
             queryWrapper.orderByDesc("solved").orderByAsc("total_time");
@@ -474,17 +579,39 @@ public class ContestServiceImpl extends ServiceImpl<ContestMapper, Contest> impl
             // IOI: 总分降序
             queryWrapper.orderByDesc("total_score");
         }
+        // 成绩相同按用户 id，保证分页稳定
+        return queryWrapper.orderByAsc("user_id");
+    }
 
-        // 这行代码现在应该能正常编译通过了
-        Page<ContestRanking> page = contestRankingService.page(new Page<>(current, size), queryWrapper);
-
-        // 填充排名序号 (current - 1) * size + index + 1
-        long startRank = (current - 1) * size + 1;
-        List<ContestRanking> records = page.getRecords();
-        for (int i = 0; i < records.size(); i++) {
-            records.get(i).setRank((int) ((current - 1) * size + i + 1));
+    /**
+     * 成绩严格更好的人数
+     */
+    private long countBetter(Contest contest, ContestRanking ranking) {
+        QueryWrapper<ContestRanking> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("contest_id", contest.getId());
+        if (contest.getType() == 0) {
+            int solved = ranking.getSolved() == null ? 0 : ranking.getSolved();
+            long totalTime = ranking.getTotalTime() == null ? 0L : ranking.getTotalTime();
+            queryWrapper.and(w -> w.gt("solved", solved)
+                    .or(x -> x.eq("solved", solved).lt("total_time", totalTime)));
+        } else {
+            queryWrapper.gt("total_score", ranking.getTotalScore() == null ? 0 : ranking.getTotalScore());
         }
+        return contestRankingService.count(queryWrapper);
+    }
 
-        return page;
+    /**
+     * 与给定记录成绩相同的查询条件
+     */
+    private QueryWrapper<ContestRanking> scoreEquals(Contest contest, ContestRanking ranking) {
+        QueryWrapper<ContestRanking> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("contest_id", contest.getId());
+        if (contest.getType() == 0) {
+            queryWrapper.eq("solved", ranking.getSolved() == null ? 0 : ranking.getSolved())
+                    .eq("total_time", ranking.getTotalTime() == null ? 0L : ranking.getTotalTime());
+        } else {
+            queryWrapper.eq("total_score", ranking.getTotalScore() == null ? 0 : ranking.getTotalScore());
+        }
+        return queryWrapper;
     }
-}
\ No newline at end of file
+}
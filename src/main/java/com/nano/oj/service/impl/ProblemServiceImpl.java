@@ -1,14 +1,21 @@
 package com.nano.oj.service.impl;
 
 import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.nano.oj.common.ErrorCode;
 import com.nano.oj.exception.BusinessException;
+import com.nano.oj.judge.testdata.TestData;
+import com.nano.oj.judge.testdata.TestDataStore;
 import com.nano.oj.mapper.ProblemMapper;
 import com.nano.oj.mapper.ProblemTagMapper;
 import com.nano.oj.mapper.TagMapper;
+import com.nano.oj.model.dto.problem.JudgeCase;
+import com.nano.oj.model.dto.problem.JudgeChecker;
 import com.nano.oj.model.entity.Problem;
 import com.nano.oj.model.entity.ProblemTag;
 import com.nano.oj.model.entity.Tag;
@@ -41,17 +48,30 @@ public class ProblemServiceImpl extends ServiceImpl<ProblemMapper, Problem> impl
     @Resource
     private ProblemTagMapper problemTagMapper;
 
+    @Resource
+    private TestDataStore testDataStore;
+
     /**
      * 创建题目（处理标签关联）
      */
     @Override
     @Transactional(rollbackFor = Exception.class)
     public long addProblem(Problem problem, List<String> tags) {
-        // 1. 插入题目
+        // 1. 插入题目 (用例不进题目表，拿到 id 后写入测试数据存储)
+        String judgeCaseStr = problem.getJudgeCase();
+        problem.setJudgeCase(null);
         boolean result = this.save(problem);
         if (!result) {
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "创建题目失败");
         }
+        String reference = saveTestData(problem.getId(), judgeCaseStr, problem.getChecker());
+        if (reference != null) {
+            Problem updateProblem = new Problem();
+            updateProblem.setId(problem.getId());
+            updateProblem.setTestDataManifest(reference);
+            this.updateById(updateProblem);
+            problem.setTestDataManifest(reference);
+        }
 
         // 2. 处理标签
         if (CollUtil.isNotEmpty(tags)) {
@@ -66,8 +86,18 @@ public class ProblemServiceImpl extends ServiceImpl<ProblemMapper, Problem> impl
     @Override
     @Transactional(rollbackFor = Exception.class)
     public boolean updateProblem(Problem problem, List<String> tags) {
-        // 1. 更新题目基础信息
-        boolean result = this.updateById(problem);
+        // 1. 更新题目基础信息 (传了用例或特判程序则生成新的测试数据版本，并清空旧的 judgeCase JSON)
+        boolean result;
+        String reference = saveTestDataForUpdate(problem);
+        problem.setJudgeCase(null);
+        if (reference != null) {
+            problem.setTestDataManifest(reference);
+            result = this.update(problem, new LambdaUpdateWrapper<Problem>()
+                    .eq(Problem::getId, problem.getId())
+                    .set(Problem::getJudgeCase, null));
+        } else {
+            result = this.updateById(problem);
+        }
         if (!result) {
             return false;
         }
@@ -87,6 +117,67 @@ public class ProblemServiceImpl extends ServiceImpl<ProblemMapper, Problem> impl
         return true;
     }
 
+    @Override
+    public TestData getTestData(Problem problem) {
+        if (StrUtil.isNotBlank(problem.getTestDataManifest())) {
+            return testDataStore.load(problem.getTestDataManifest());
+        }
+        // 老题目：把 judgeCase JSON 迁移到测试数据存储 (内容相同则版本相同，并发迁移也是幂等的)
+        String reference = saveTestData(problem.getId(), problem.getJudgeCase(), null);
+        if (reference == null) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "题目判题用例缺失");
+        }
+        this.update(new LambdaUpdateWrapper<Problem>()
+                .eq(Problem::getId, problem.getId())
+                .set(Problem::getTestDataManifest, reference)
+                .set(Problem::getJudgeCase, null));
+        problem.setTestDataManifest(reference);
+        problem.setJudgeCase(null);
+        return testDataStore.load(reference);
+    }
+
+    /**
+     * 辅助方法：把 judgeCase JSON 写入测试数据存储，返回清单引用 (没有用例时返回 null)
+     */
+    private String saveTestData(Long problemId, String judgeCaseStr, JudgeChecker checker) {
+        if (StrUtil.isBlank(judgeCaseStr)) {
+            return null;
+        }
+        List<JudgeCase> judgeCaseList = JSONUtil.toList(judgeCaseStr, JudgeCase.class);
+        if (CollUtil.isEmpty(judgeCaseList)) {
+            return null;
+        }
+        return testDataStore.save(problemId, judgeCaseList, checker);
+    }
+
+    /**
+     * 辅助方法：更新题目时生成新的测试数据版本
+     * 用例和特判程序只传了其中一个时，另一个沿用当前版本；都没传返回 null
+     */
+    private String saveTestDataForUpdate(Problem problem) {
+        JudgeChecker checker = problem.getChecker();
+        String judgeCaseStr = problem.getJudgeCase();
+        if (checker == null && StrUtil.isBlank(judgeCaseStr)) {
+            return null;
+        }
+        Problem oldProblem = this.getById(problem.getId());
+        String oldReference = oldProblem != null ? oldProblem.getTestDataManifest() : null;
+        if (StrUtil.isBlank(judgeCaseStr)) {
+            judgeCaseStr = StrUtil.isNotBlank(oldReference)
+                    ? JSONUtil.toJsonStr(testDataStore.readCases(oldReference))
+                    : (oldProblem != null ? oldProblem.getJudgeCase() : null);
+            if (StrUtil.isBlank(judgeCaseStr)) {
+                throw new BusinessException(ErrorCode.PARAMS_ERROR, "请先上传判题用例");
+            }
+        }
+        if (checker == null) {
+            checker = StrUtil.isNotBlank(oldReference) ? testDataStore.readChecker(oldReference) : null;
+        } else if (StrUtil.isBlank(checker.getCode())) {
+            checker = null;
+        }
+        return saveTestData(problem.getId(), judgeCaseStr, checker);
+    }
+
     /**
      * 辅助方法：保存标签及关联关系
      */
@@ -2,11 +2,17 @@ package com.nano.oj.service.impl;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.nano.oj.common.ErrorCode;
+import com.nano.oj.config.MqConfig;
+import com.nano.oj.exception.BusinessException;
 import com.nano.oj.judge.JudgeService;
 import com.nano.oj.judge.codesandbox.CodeSandbox;
-import com.nano.oj.judge.codesandbox.impl.DockerCodeSandbox;
 import com.nano.oj.judge.codesandbox.model.ExecuteCodeRequest;
 import com.nano.oj.judge.codesandbox.model.ExecuteCodeResponse;
+import com.nano.oj.judge.metrics.JudgeMetrics;
+import com.nano.oj.judge.metrics.JudgePhaseTimings;
+import com.nano.oj.judge.scheduler.JudgeLane;
+import com.nano.oj.judge.scheduler.JudgeScheduler;
 import com.nano.oj.mapper.QuestionSubmitMapper;
 import com.nano.oj.model.dto.questionsubmit.JudgeInfo;
 import com.nano.oj.model.dto.questionsubmit.QuestionRunRequest;
@@ -23,19 +29,25 @@ import com.nano.oj.service.UserService;
 import jakarta.annotation.Resource;
 import cn.hutool.core.collection.CollUtil;
 import org.apache.commons.lang3.StringUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
 /**
  * 题目提交服务实现
  */
 @Service
+@Slf4j
 public class QuestionSubmitServiceImpl extends ServiceImpl<QuestionSubmitMapper, QuestionSubmit>
         implements QuestionSubmitService {
 
@@ -52,7 +64,21 @@ public class QuestionSubmitServiceImpl extends ServiceImpl<QuestionSubmitMapper,
 
 
     @Resource
-    private DockerCodeSandbox dockerCodeSandbox;
+    private CodeSandbox codeSandbox;
+
+    @Resource
+    private JudgeScheduler judgeScheduler;
+
+    @Resource
+    private RabbitTemplate rabbitTemplate;
+
+    @Resource
+    private JudgeMetrics judgeMetrics;
+
+    // 是否通过判题任务队列判题 (关闭时在本进程内判题)
+    @Value("${judge.queue.enabled:true}")
+    private boolean judgeQueueEnabled;
+
     /**
      * 提交代码
      *
@@ -94,14 +120,46 @@ public class QuestionSubmitServiceImpl extends ServiceImpl<QuestionSubmitMapper,
 
         Long questionSubmitId = questionSubmit.getId();
 
-        // ✨✨✨ 关键点：异步调用判题服务 ✨✨✨
-        CompletableFuture.runAsync(() -> {
-            judgeService.doJudge(questionSubmitId);
-        });
+        // ✨✨✨ 关键点：异步判题 ✨✨✨
+        // 默认发布到持久化的判题任务队列，由判题 worker 消费；关闭时交给本进程的判题调度器
+        try {
+            if (judgeQueueEnabled) {
+                publishJudgeTask(questionSubmit);
+            } else {
+                judgeScheduler.submit(JudgeLane.ofSubmit(questionSubmit.getContestId()), loginUser.getId(),
+                        () -> judgeService.doJudge(questionSubmitId));
+            }
+        } catch (BusinessException e) {
+            // 排队被拒绝，提交记录标记为失败，避免一直停留在“待判题”
+            QuestionSubmit failedSubmit = new QuestionSubmit();
+            failedSubmit.setId(questionSubmitId);
+            failedSubmit.setStatus(3);
+            this.updateById(failedSubmit);
+            throw e;
+        }
 
         return questionSubmitId;
     }
 
+    /**
+     * 发布判题任务 (持久化消息，比赛提交优先级更高)
+     */
+    private void publishJudgeTask(QuestionSubmit questionSubmit) {
+        int priority = JudgeLane.ofSubmit(questionSubmit.getContestId()) == JudgeLane.CONTEST
+                ? MqConfig.JUDGE_TASK_PRIORITY_CONTEST : MqConfig.JUDGE_TASK_PRIORITY_PRACTICE;
+        try {
+            rabbitTemplate.convertAndSend(MqConfig.JUDGE_EXCHANGE, MqConfig.JUDGE_TASK_ROUTING_KEY,
+                    String.valueOf(questionSubmit.getId()), message -> {
+                        message.getMessageProperties().setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+                        message.getMessageProperties().setPriority(priority);
+                        return message;
+                    });
+        } catch (AmqpException e) {
+            log.error("❌ 判题任务发布失败, 提交 id: {}", questionSubmit.getId(), e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "判题任务提交失败");
+        }
+    }
+
     /**
      * 获取单条脱敏信息 (转 VO)
      *
@@ -178,8 +236,7 @@ public class QuestionSubmitServiceImpl extends ServiceImpl<QuestionSubmitMapper,
             throw new RuntimeException("参数为空");
         }
 
-        // 2. 调用沙箱 (DockerCodeSandbox)
-        CodeSandbox codeSandbox = dockerCodeSandbox;
+        // 2. 调用沙箱 (DockerCodeSandbox，压测时为 FakeCodeSandbox)
 
         List<String> inputList = new ArrayList<>();
         // 处理输入：如果没输入，也得传个空列表进去跑
@@ -187,13 +244,30 @@ public class QuestionSubmitServiceImpl extends ServiceImpl<QuestionSubmitMapper,
             inputList.add(input);
         }
 
+        JudgePhaseTimings timings = new JudgePhaseTimings();
         ExecuteCodeRequest executeRequest = ExecuteCodeRequest.builder()
                 .code(code)
                 .language(language)
                 .inputList(inputList)
+                .phaseTimings(timings)
                 .build();
 
-        ExecuteCodeResponse executeResponse = codeSandbox.executeCode(executeRequest);
+        // 自测同样经过判题调度器 (自测通道)，调用方同步等待结果
+        ExecuteCodeResponse executeResponse;
+        try {
+            executeResponse = judgeScheduler.submit(JudgeLane.RUN, loginUser.getId(),
+                    () -> codeSandbox.executeCode(executeRequest)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "运行被中断");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "运行失败");
+        }
+        // 自测没有判题结果，统一记为 Run
+        judgeMetrics.record(timings, language, "Run");
 
         // 3. 封装返回结果
         QuestionSubmitVO vo = new QuestionSubmitVO();
@@ -0,0 +1,135 @@
+#!/bin/sh
+# 判题 harness：在同一个容器内依次运行全部测试用例，只需一次 exec
+# 用法: sh /app/harness.sh <用例数> <内存上限Byte> <单用例墙钟上限ms> <比对模式 0|1|2> <CPU时间限制ms> <输出上限Byte> <选手uid> <运行命令>
+#   比对模式: 0-不比对 1-逐用例比对 2-逐用例比对并 fail-fast
+# 输入: /app/input_<i>.txt   输出: /app/output_<i>.txt (stdout + stderr)
+# 预期输出 (比对模式 1/2): /app/answer_<i>.txt
+# 结果: 写到 harness 自己的标准输出，每行 "<用例序号> <状态> <退出码> <CPU时间ms> <墙钟时间ms> <内存峰值Byte>"
+# harness 以 root 运行，选手程序降权到 <选手uid> 运行：不能写 /app、不能向 harness 发信号，也碰不到 harness 的标准输出
+#   输入文件由 harness 打开后重定向给选手程序，输出文件由 harness 创建，选手只持有已打开的文件描述符
+#   状态: OK-正常 RE-运行错误 TLE-超时 MLE-超内存 OLE-输出超限 WA-答案错误 (仅比对模式)
+# 默认与逐用例 exec 模式保持一致：遇到运行错误 / 输出超限立即停止，超时/超内存继续跑完
+# fail-fast 模式：遇到第一个答案错误 / 超时 / 超内存就停止
+# 输出超限通过 ulimit -f 限制输出文件大小，写超时程序立即被 SIGXFSZ 杀掉
+# CPU 时间取容器 cgroup (v2) 的 cpu.stat 差值，超过限制由监视进程立即杀掉；读不到 cpu.stat 时退回墙钟时间
+
+count=$1
+memory_limit=$2
+wall_limit=$3
+check_mode=$4
+time_limit=$5
+output_limit=$6
+run_uid=$7
+run_cmd=$8
+
+# 输出文件只允许 root 写，宿主机可读
+umask 022
+
+# 私有临时目录 (mktemp 创建的目录权限为 700)，选手进程无法读写
+work=$(mktemp -d)
+trap 'rm -rf "$work"' EXIT
+
+# 以选手身份运行命令
+as_user() {
+    setpriv --reuid="$run_uid" --regid="$run_uid" --clear-groups --no-new-privs /bin/sh -c "$1"
+}
+
+# ulimit -f 以 512 字节为单位
+output_blocks=$(( (output_limit + 511) / 512 ))
+
+# CPU 监视进程的轮询间隔 (秒)，轮询本身的开销会计入用户 CPU 时间，不宜过小
+poll_interval=0.05
+
+# timeout 需要秒数，这里把毫秒换算成 "秒.毫秒"
+wall_seconds="$((wall_limit / 1000)).$(printf '%03d' $((wall_limit % 1000)))"
+
+# 读取容器 cgroup 的 CPU 用量 (微秒)，只用 shell 内建的 read，不启动外部命令，减少计入用户的 CPU 时间
+cpu_stat=/sys/fs/cgroup/cpu.stat
+cpu_usage() {
+    read -r _ usage < "$cpu_stat" && echo "$usage"
+}
+if [ ! -r "$cpu_stat" ]; then
+    cpu_stat=
+fi
+
+# 与判题服务一致的比对规则：所有连续空白视为一个分隔符，忽略首尾空白
+normalize() {
+    { tr -s '[:space:]' '\n' < "$1"; echo; } | sed '/^$/d'
+}
+
+i=0
+while [ "$i" -lt "$count" ]; do
+    rm -f "$work/cpu_tle" "/app/output_$i.txt"
+    [ -n "$cpu_stat" ] && cpu_start=$(cpu_usage)
+    s=$(date +%s%N)
+    # GNU timeout 会把自己放进新的进程组，杀进程组即可连同子进程一起杀掉
+    (ulimit -f "$output_blocks"; exec timeout -s KILL "$wall_seconds" setpriv --reuid="$run_uid" --regid="$run_uid" --clear-groups --no-new-privs /bin/sh -c "$run_cmd") < "/app/input_$i.txt" > "/app/output_$i.txt" 2>&1 &
+    run_pid=$!
+    watch_pid=
+    if [ -n "$cpu_stat" ]; then
+        (
+            cpu_limit=$((time_limit * 1000))
+            while kill -0 "$run_pid" 2>/dev/null; do
+                sleep "$poll_interval"
+                if [ $(( $(cpu_usage) - cpu_start )) -gt "$cpu_limit" ]; then
+                    : > "$work/cpu_tle"
+                    kill -9 "-$run_pid" 2>/dev/null || kill -9 "$run_pid" 2>/dev/null
+                    break
+                fi
+            done
+        ) &
+        watch_pid=$!
+    fi
+    wait "$run_pid"
+    ret=$?
+    cost=$(( ($(date +%s%N) - s) / 1000000 ))
+    # 杀掉选手程序留下的后台进程 (以选手身份 kill -1 只会波及选手自己的进程)
+    as_user 'kill -9 -1' 2>/dev/null
+    if [ -n "$watch_pid" ]; then
+        kill "$watch_pid" 2>/dev/null
+        wait "$watch_pid" 2>/dev/null
+    fi
+    if [ -n "$cpu_stat" ]; then
+        cpu_cost=$(( ($(cpu_usage) - cpu_start) / 1000 ))
+    else
+        cpu_cost=$cost
+    fi
+    # 池化容器内读到的峰值包含之前的运行，判题服务会用宿主机 cgroup 统计校正
+    memory=$(cat /sys/fs/cgroup/memory/memory.max_usage_in_bytes 2>/dev/null || cat /sys/fs/cgroup/memory.peak 2>/dev/null || echo 0)
+
+    output_size=$(wc -c < "/app/output_$i.txt")
+
+    if [ -e "$work/cpu_tle" ] || { [ "$ret" -ne 0 ] && [ "$cost" -ge "$wall_limit" ]; }; then
+        status=TLE
+    elif [ "$output_size" -ge "$output_limit" ]; then
+        status=OLE
+    elif [ "$ret" -eq 137 ]; then
+        status=MLE
+    elif [ "$ret" -ne 0 ]; then
+        status=RE
+    else
+        status=OK
+    fi
+
+    if [ "$check_mode" != "0" ] && [ "$status" = "OK" ]; then
+        if [ "$check_mode" = "2" ] && [ "$cpu_cost" -gt "$time_limit" ]; then
+            status=TLE
+        else
+            normalize "/app/output_$i.txt" > "$work/actual"
+            normalize "/app/answer_$i.txt" > "$work/expected"
+            if ! cmp -s "$work/actual" "$work/expected"; then
+                status=WA
+            fi
+        fi
+    fi
+    echo "$i $status $ret $cpu_cost $cost $memory"
+
+    if [ "$status" = "RE" ] || [ "$status" = "OLE" ]; then
+        break
+    fi
+    if [ "$check_mode" = "2" ] && [ "$status" != "OK" ]; then
+        break
+    fi
+    i=$((i + 1))
+done
+exit 0